@@ -0,0 +1,167 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import benchmarks.Target;
+
+/**
+ * Implements the benchmark operations with the calculator classes. It lives
+ * in the default package so it can see them.
+ *
+ */
+public class BenchmarkTarget implements Target {
+	private static final int SEED = 6611;
+
+	private final Statistics model = new Statistics();
+
+	@Override
+	public double[] generate(String distribution, int count) {
+		DataGenerator generator = new DataGenerator(SEED);
+		switch (distribution) {
+		case UNIFORM:
+			return generator.generateDouble(0, 1000, count);
+		case DUPLICATES:
+			// About a hundred distinct values, so every value repeats a lot.
+			double[] values = generator.generateDouble(0, 100, count);
+			for (int i = 0; i < values.length; i++) {
+				values[i] = Math.floor(values[i]);
+			}
+			return values;
+		case SORTED:
+			double[] sorted = generator.generateDouble(0, 1000, count);
+			Arrays.sort(sorted);
+			return sorted;
+		case REVERSED:
+			double[] reversed = generator.generateDouble(0, 1000, count);
+			Arrays.sort(reversed);
+			for (int i = 0, j = reversed.length - 1; i < j; i++, j--) {
+				double swap = reversed[i];
+				reversed[i] = reversed[j];
+				reversed[j] = swap;
+			}
+			return reversed;
+		default:
+			throw new IllegalArgumentException("Unknown distribution: " + distribution);
+		}
+	}
+
+	@Override
+	public void writeText(double[] values, String fileName) throws IOException {
+		byte[] buffer = new byte[1 << 16];
+		int position = 0;
+		try (FileOutputStream out = new FileOutputStream(fileName)) {
+			for (double value : values) {
+				if (position > buffer.length - DoubleFormatter.MAX_LENGTH - 1) {
+					out.write(buffer, 0, position);
+					position = 0;
+				}
+				position = DoubleFormatter.format(value, DoubleFormatter.FULL_PRECISION, buffer, position);
+				buffer[position++] = '\n';
+			}
+			out.write(buffer, 0, position);
+		}
+	}
+
+	@Override
+	public void writeBinary(double[] values, String fileName) throws IOException {
+		BinaryDataset.write(fileName, values);
+	}
+
+	@Override
+	public void readData(double[] values) {
+		model.readData(values);
+	}
+
+	@Override
+	public void readData(ArrayList<Double> values) {
+		model.readData(values);
+	}
+
+	@Override
+	public void readFile(String fileName) throws IOException {
+		model.readData(NumberFileReader.read(fileName, Runtime.getRuntime().availableProcessors()));
+	}
+
+	@Override
+	public void readBinary(String fileName) throws IOException {
+		model.readBinary(fileName);
+	}
+
+	@Override
+	public long summarizeFile(String fileName) throws IOException {
+		StreamingStatistics accumulator = new StreamingStatistics(QuantileSketch.DEFAULT_K);
+		NumberFileReader.forEach(fileName, accumulator::accept);
+		return accumulator.getCount();
+	}
+
+	@Override
+	public int getCount() {
+		return model.getCount();
+	}
+
+	@Override
+	public double getMin() {
+		return model.getMin();
+	}
+
+	@Override
+	public double getMax() {
+		return model.getMax();
+	}
+
+	@Override
+	public double[] getMode(int limit) {
+		return model.getMode(limit);
+	}
+
+	@Override
+	public double getMedian() {
+		return model.getMedian();
+	}
+
+	@Override
+	public double getPercentile(double p) {
+		return model.getPercentile(p);
+	}
+
+	@Override
+	public double getMean() {
+		return model.getMean();
+	}
+
+	@Override
+	public double getHarmonicMean() {
+		return model.getHarmonicMean();
+	}
+
+	@Override
+	public double getMAD() {
+		return model.getMAD();
+	}
+
+	@Override
+	public double getVariance() {
+		return model.getVariance();
+	}
+
+	@Override
+	public double getSD() {
+		return model.getSD();
+	}
+
+	@Override
+	public double getPVariance() {
+		return model.getPVariance();
+	}
+
+	@Override
+	public double getPSD() {
+		return model.getPSD();
+	}
+
+	@Override
+	public double sqrt(double num) {
+		return Statistics.sqrt(num);
+	}
+}
@@ -0,0 +1,25 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options and always adds the
+ * GC profiler, so every result reports the allocation rate next to ops/s.
+ * <pre>
+ * mvn -B package
+ * java -jar benchmarks/target/benchmarks.jar [JMH options]
+ * java -jar benchmarks/target/benchmarks.jar MeasureBenchmark.median -p size=1000000
+ * </pre>
+ *
+ */
+public class BenchmarkMain {
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions options = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,99 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of every way the calculator loads a data set: from an array,
+ * from a list of boxed values, from text and binary files, from the random
+ * number generator, and summarizing a text file without loading it.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LoadBenchmark {
+	@Param({ "1000", "100000", "10000000", "100000000" })
+	private int size;
+
+	@Param({ Target.UNIFORM, Target.DUPLICATES, Target.SORTED, Target.REVERSED })
+	private String distribution;
+
+	private Target target;
+	private double[] values;
+	private ArrayList<Double> list;
+	private File textFile;
+	private File binaryFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		target = Target.create();
+		values = target.generate(distribution, size);
+		list = new ArrayList<Double>(values.length);
+		for (double value : values) {
+			list.add(value);
+		}
+		textFile = File.createTempFile("benchmark", ".txt");
+		target.writeText(values, textFile.getPath());
+		binaryFile = File.createTempFile("benchmark", ".sds");
+		target.writeBinary(values, binaryFile.getPath());
+	}
+
+	@TearDown
+	public void tearDown() {
+		textFile.delete();
+		binaryFile.delete();
+	}
+
+	@Benchmark
+	public int readArray() {
+		target.readData(values);
+		return target.getCount();
+	}
+
+	@Benchmark
+	public int readList() {
+		target.readData(list);
+		return target.getCount();
+	}
+
+	@Benchmark
+	public int readTextFile() throws IOException {
+		target.readFile(textFile.getPath());
+		return target.getCount();
+	}
+
+	@Benchmark
+	public int readBinaryFile() throws IOException {
+		target.readBinary(binaryFile.getPath());
+		return target.getCount();
+	}
+
+	@Benchmark
+	public double[] generate() {
+		return target.generate(distribution, size);
+	}
+
+	@Benchmark
+	public long summarizeTextFile() throws IOException {
+		return target.summarizeFile(textFile.getPath());
+	}
+}
@@ -0,0 +1,123 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of every measure of the calculator. The model caches its sort
+ * and its summary, so each invocation loads a fresh copy of the data set
+ * before measuring; {@link #readData()} is the cost of that load alone and
+ * should be subtracted when comparing measures.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MeasureBenchmark {
+	@Param({ "1000", "100000", "10000000", "100000000" })
+	private int size;
+
+	@Param({ Target.UNIFORM, Target.DUPLICATES, Target.SORTED, Target.REVERSED })
+	private String distribution;
+
+	private Target target;
+	private double[] values;
+
+	@Setup
+	public void setUp() {
+		target = Target.create();
+		values = target.generate(distribution, size);
+	}
+
+	@Benchmark
+	public int readData() {
+		target.readData(values);
+		return target.getCount();
+	}
+
+	@Benchmark
+	public double min() {
+		target.readData(values);
+		return target.getMin();
+	}
+
+	@Benchmark
+	public double max() {
+		target.readData(values);
+		return target.getMax();
+	}
+
+	@Benchmark
+	public double[] mode() {
+		target.readData(values);
+		return target.getMode(Integer.MAX_VALUE);
+	}
+
+	@Benchmark
+	public double median() {
+		target.readData(values);
+		return target.getMedian();
+	}
+
+	@Benchmark
+	public double percentile() {
+		target.readData(values);
+		return target.getPercentile(90);
+	}
+
+	@Benchmark
+	public double mean() {
+		target.readData(values);
+		return target.getMean();
+	}
+
+	@Benchmark
+	public double harmonicMean() {
+		target.readData(values);
+		return target.getHarmonicMean();
+	}
+
+	@Benchmark
+	public double mad() {
+		target.readData(values);
+		return target.getMAD();
+	}
+
+	@Benchmark
+	public double variance() {
+		target.readData(values);
+		return target.getVariance();
+	}
+
+	@Benchmark
+	public double sd() {
+		target.readData(values);
+		return target.getSD();
+	}
+
+	@Benchmark
+	public double populationVariance() {
+		target.readData(values);
+		return target.getPVariance();
+	}
+
+	@Benchmark
+	public double populationSD() {
+		target.readData(values);
+		return target.getPSD();
+	}
+}
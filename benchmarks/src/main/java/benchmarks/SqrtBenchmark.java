@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the calculator's square root over inputs of every magnitude,
+ * with Math.sqrt as the baseline.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqrtBenchmark {
+	private static final int COUNT = 1024;
+
+	private Target target;
+	private double[] inputs;
+
+	@Setup
+	public void setUp() {
+		target = Target.create();
+		inputs = new double[COUNT];
+		SplittableRandom random = new SplittableRandom(6611);
+		for (int i = 0; i < COUNT; i++) {
+			inputs[i] = random.nextDouble() * Math.pow(10, random.nextInt(-300, 300));
+		}
+	}
+
+	@Benchmark
+	public double statisticsSqrt() {
+		double total = 0;
+		for (double input : inputs) {
+			total += target.sqrt(input);
+		}
+		return total;
+	}
+
+	@Benchmark
+	public double mathSqrt() {
+		double total = 0;
+		for (double input : inputs) {
+			total += Math.sqrt(input);
+		}
+		return total;
+	}
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * The calculator operations under benchmark. JMH does not accept benchmarks
+ * in the default package, where the calculator classes live, so the
+ * benchmarks reach them through this interface; the only implementation is
+ * loaded once per trial and every call site stays monomorphic.
+ *
+ */
+public interface Target {
+	/** Distributions of the generated data sets. */
+	String UNIFORM = "uniform";
+	String DUPLICATES = "duplicates";
+	String SORTED = "sorted";
+	String REVERSED = "reversed";
+
+	/**
+	 * Return the implementation backed by the calculator classes.
+	 * @return a new target.
+	 */
+	static Target create() {
+		try {
+			return (Target) Class.forName("BenchmarkTarget").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("The benchmark target is not on the class path.", e);
+		}
+	}
+
+	/**
+	 * Return a data set produced by DataGenerator.
+	 * @param distribution one of the distribution constants.
+	 * @param count        number of value.
+	 * @return the generated values.
+	 */
+	double[] generate(String distribution, int count);
+
+	void writeText(double[] values, String fileName) throws IOException;
+
+	void writeBinary(double[] values, String fileName) throws IOException;
+
+	void readData(double[] values);
+
+	void readData(ArrayList<Double> values);
+
+	void readFile(String fileName) throws IOException;
+
+	void readBinary(String fileName) throws IOException;
+
+	/**
+	 * Summarize a text file without loading it, as the calculator's fourth
+	 * load option does.
+	 * @param fileName path of the file.
+	 * @return count of value in the file.
+	 * @throws IOException if the file cannot be read.
+	 */
+	long summarizeFile(String fileName) throws IOException;
+
+	int getCount();
+
+	double getMin();
+
+	double getMax();
+
+	double[] getMode(int limit);
+
+	double getMedian();
+
+	double getPercentile(double p);
+
+	double getMean();
+
+	double getHarmonicMean();
+
+	double getMAD();
+
+	double getVariance();
+
+	double getSD();
+
+	double getPVariance();
+
+	double getPSD();
+
+	double sqrt(double num);
+}
@@ -0,0 +1,426 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Non-interactive mode of the calculator. Computes the requested measures of
+ * many data set files in one run, loading and measuring the files
+ * concurrently on a fixed size thread pool, and writes one machine readable
+ * record per file, in the order the files were given, with the time spent
+ * loading and measuring it.
+ * <pre>
+ * java Calculator [options] [file | glob | -]...
+ *   --measures m1,m2,...  measures to compute (default: all), from
+ *                         count, min, max, mode, median, mean, hmean, mad,
+ *                         pvar, psd, var, sd and pN for the N-th percentile
+ *   --modes n             most modes written per file (default: 5); the
+ *                         number of modes is written as mode_count
+ *   --format jsonl|csv    output format (default: jsonl)
+ *   --threads n           number of files processed at once (default: one
+ *                         per processor)
+ *   -                     read numbers from standard input, also the default
+ *                         when no file is given
+ * </pre>
+ * Files may be text with one number per line or binary data sets. Globs such
+ * as data/*.txt or logs/**&#47;*.bin are expanded by the program.
+ *
+ */
+public class BatchMode {
+	static final String[] ALL_MEASURES = { "count", "min", "max", "mode", "median", "mean", "hmean", "mad",
+			"pvar", "psd", "var", "sd" };
+	/** Default number of modes written, also used by the server. */
+	static final int DEFAULT_MODES = 5;
+	private static final String STDIN = "-";
+
+	private final List<String> inputs;
+	private final String[] measures;
+	private final int modes;
+	private final boolean csv;
+	private final int threads;
+	private final AtomicInteger failures;
+
+	/**
+	 * Constructor. Parse the command line arguments.
+	 * @param args program arguments.
+	 * @throws IllegalArgumentException if an option or a measure is not valid.
+	 */
+	public BatchMode(String[] args) throws IllegalArgumentException {
+		List<String> files = new ArrayList<String>();
+		String[] selected = ALL_MEASURES;
+		int modeLimit = DEFAULT_MODES;
+		boolean isCsv = false;
+		int count = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--measures":
+				selected = optionValue(args, ++i).split(",");
+				for (String measure : selected) {
+					checkMeasure(measure);
+				}
+				break;
+			case "--modes":
+				modeLimit = Integer.parseInt(optionValue(args, ++i));
+				if (modeLimit < 0) {
+					throw new IllegalArgumentException("The number of modes should not be negative, your number: "
+							+ modeLimit);
+				}
+				break;
+			case "--format":
+				String format = optionValue(args, ++i);
+				if (!format.equals("jsonl") && !format.equals("csv")) {
+					throw new IllegalArgumentException("The format should be jsonl or csv, your format: " + format);
+				}
+				isCsv = format.equals("csv");
+				break;
+			case "--threads":
+				count = Integer.parseInt(optionValue(args, ++i));
+				if (count <= 0) {
+					throw new IllegalArgumentException("The number of threads should be greater than 0, your number: "
+							+ count);
+				}
+				break;
+			default:
+				files.add(args[i]);
+			}
+		}
+		if (files.isEmpty()) {
+			files.add(STDIN);
+		}
+		this.inputs = files;
+		this.measures = columns(selected);
+		this.modes = modeLimit;
+		this.csv = isCsv;
+		this.threads = count;
+		this.failures = new AtomicInteger();
+	}
+
+	/**
+	 * Process every input and print one record per data set. A glob which
+	 * matches no file gets a failure record, like a missing file.
+	 * @param in  standard input, read when an input is "-".
+	 * @param out receiver of the records.
+	 * @return 0 if every data set was measured, 1 otherwise.
+	 * @throws IOException if a glob cannot be expanded.
+	 */
+	public int run(InputStream in, PrintStream out) throws IOException {
+		List<String> files = new ArrayList<String>();
+		Set<String> unmatched = new HashSet<String>();
+		for (String input : inputs) {
+			List<String> matches = expand(input);
+			if (matches.isEmpty()) {
+				unmatched.add(input);
+				files.add(input);
+			}
+			files.addAll(matches);
+		}
+		if (csv) {
+			out.println(csvHeader());
+		}
+
+		failures.set(0);
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, files.size())));
+		try {
+			List<Future<String>> records = new ArrayList<Future<String>>();
+			for (String file : files) {
+				if (unmatched.contains(file)) {
+					records.add(CompletableFuture.completedFuture(
+							failure(file, new IOException("No file matches the pattern."))));
+				}
+				else {
+					records.add(pool.submit(() -> measure(file, in)));
+				}
+			}
+			for (Future<String> record : records) {
+				out.println(record.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while measuring the data sets.", e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		return failures.get() == 0 ? 0 : 1;
+	}
+
+	/**
+	 * Load one data set and return its record. Failures are reported in the
+	 * record so the other files are still processed.
+	 */
+	private String measure(String file, InputStream in) {
+		Statistics model = new Statistics();
+		long start = System.nanoTime();
+		try {
+			if (file.equals(STDIN)) {
+				model.readData(readStream(in));
+			}
+			else if (BinaryDataset.isBinary(file)) {
+				model.readBinary(file);
+			}
+			else {
+				model.readData(NumberFileReader.read(file));
+			}
+		} catch (IOException | RuntimeException e) {
+			return failure(file, e);
+		}
+		long loaded = System.nanoTime();
+
+		String[] values = new String[measures.length];
+		try {
+			for (int i = 0; i < measures.length; i++) {
+				values[i] = evaluate(model, measures[i]);
+			}
+		} catch (RuntimeException e) {
+			return failure(file, e);
+		}
+		long measured = System.nanoTime();
+		return record(file, values, (loaded - start) / 1e6, (measured - loaded) / 1e6, null);
+	}
+
+	private String failure(String file, Exception e) {
+		failures.incrementAndGet();
+		String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+		return record(file, new String[measures.length], 0, 0, message);
+	}
+
+	/**
+	 * Return the value of a measure, formatted for the output format.
+	 */
+	private String evaluate(Statistics model, String measure) {
+		switch (measure) {
+		case "count":
+			return Integer.toString(model.getCount());
+		case "min":
+			return number(model.getMin());
+		case "max":
+			return number(model.getMax());
+		case "mode":
+			double[] values = model.getMode(modes);
+			StringBuilder text = new StringBuilder(csv ? "" : "[");
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					text.append(csv ? " " : ",");
+				}
+				text.append(number(values[i]));
+			}
+			return text.append(csv ? "" : "]").toString();
+		case "mode_count":
+			return Integer.toString(model.getModeCount());
+		case "median":
+			return number(model.getMedian());
+		case "mean":
+			return number(model.getMean());
+		case "hmean":
+			return number(model.getHarmonicMean());
+		case "mad":
+			return number(model.getMAD());
+		case "pvar":
+			return number(model.getPVariance());
+		case "psd":
+			return number(model.getPSD());
+		case "var":
+			return number(model.getVariance());
+		case "sd":
+			return number(model.getSD());
+		default:
+			return number(model.getPercentile(Double.parseDouble(measure.substring(1))));
+		}
+	}
+
+	/**
+	 * Return a number as text. JSON has no literal for NaN or infinities, so
+	 * they are written as null there and as NaN or Infinity in CSV.
+	 */
+	private String number(double value) {
+		if (!csv && (Double.isNaN(value) || Double.isInfinite(value))) {
+			return "null";
+		}
+		return Double.toString(value);
+	}
+
+	private String record(String file, String[] values, double loadMillis, double measureMillis, String error) {
+		StringBuilder line = new StringBuilder();
+		if (csv) {
+			line.append(csvField(file));
+			for (String value : values) {
+				line.append(',').append(value == null ? "" : value);
+			}
+			line.append(',').append(millis(loadMillis)).append(',').append(millis(measureMillis)).append(',');
+			if (error != null) {
+				line.append(csvField(error));
+			}
+			return line.toString();
+		}
+		line.append("{\"file\":").append(jsonString(file));
+		if (error != null) {
+			line.append(",\"error\":").append(jsonString(error));
+		}
+		else {
+			for (int i = 0; i < measures.length; i++) {
+				line.append(",\"").append(measures[i]).append("\":").append(values[i]);
+			}
+			line.append(",\"load_ms\":").append(millis(loadMillis));
+			line.append(",\"measure_ms\":").append(millis(measureMillis));
+		}
+		return line.append('}').toString();
+	}
+
+	private String csvHeader() {
+		StringBuilder header = new StringBuilder("file");
+		for (String measure : measures) {
+			header.append(',').append(measure);
+		}
+		return header.append(",load_ms,measure_ms,error").toString();
+	}
+
+	private static String millis(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	private static String csvField(String text) {
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+			return text;
+		}
+		return '"' + text.replace("\"", "\"\"") + '"';
+	}
+
+	static String jsonString(String text) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * Read numbers, one per line, from a stream. A line which is not a number
+	 * is reported by its line number, without its text.
+	 */
+	static double[] readStream(InputStream in) throws IOException, NumberFormatException {
+		DoubleArrayBuilder values = new DoubleArrayBuilder();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+		String line;
+		for (long number = 1; (line = reader.readLine()) != null; number++) {
+			line = line.trim();
+			if (!line.isEmpty()) {
+				try {
+					values.add(Double.parseDouble(line));
+				} catch (NumberFormatException e) {
+					throw new NumberFormatException("Line " + number + " is not a number.");
+				}
+			}
+		}
+		return values.toArray();
+	}
+
+	/**
+	 * Return the files matching an input: the input itself unless it is a
+	 * glob, otherwise every regular file under the fixed leading directories
+	 * of the glob which matches it, in name order.
+	 */
+	static List<String> expand(String input) throws IOException {
+		int wildcard = firstWildcard(input);
+		if (input.equals(STDIN) || wildcard < 0) {
+			List<String> single = new ArrayList<String>();
+			single.add(input);
+			return single;
+		}
+		int slash = input.lastIndexOf('/', wildcard);
+		Path base = slash < 0 ? Paths.get(".") : Paths.get(slash == 0 ? "/" : input.substring(0, slash));
+		String pattern = input.substring(slash + 1);
+		if (!Files.isDirectory(base)) {
+			return new ArrayList<String>();
+		}
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+		int depth = pattern.contains("**") ? Integer.MAX_VALUE : pattern.split("/").length;
+		try (Stream<Path> paths = Files.walk(base, depth)) {
+			return paths.filter(Files::isRegularFile)
+					.filter(path -> matcher.matches(base.relativize(path)))
+					.map(path -> slash < 0 ? base.relativize(path).toString() : path.toString())
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static int firstWildcard(String input) {
+		for (int i = 0; i < input.length(); i++) {
+			if ("*?[{".indexOf(input.charAt(i)) >= 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Return the output columns for the selected measures: the measures
+	 * themselves, with mode_count after mode since only some modes are
+	 * written.
+	 */
+	private static String[] columns(String[] selected) {
+		List<String> columns = new ArrayList<String>();
+		for (String measure : selected) {
+			columns.add(measure);
+			if (measure.equals("mode")) {
+				columns.add("mode_count");
+			}
+		}
+		return columns.toArray(new String[0]);
+	}
+
+	private static String optionValue(String[] args, int i) throws IllegalArgumentException {
+		if (i >= args.length) {
+			throw new IllegalArgumentException("Missing value for option " + args[i - 1]);
+		}
+		return args[i];
+	}
+
+	static void checkMeasure(String measure) throws IllegalArgumentException {
+		for (String known : ALL_MEASURES) {
+			if (known.equals(measure)) {
+				return;
+			}
+		}
+		if (measure.startsWith("p")) {
+			try {
+				double p = Double.parseDouble(measure.substring(1));
+				if (p >= 0 && p <= 100) {
+					return;
+				}
+			} catch (NumberFormatException e) {
+				// fall through to the error below
+			}
+		}
+		throw new IllegalArgumentException("Unknown measure: " + measure);
+	}
+}
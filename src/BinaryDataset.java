@@ -0,0 +1,200 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * A compact binary data set file. The file starts with a fixed header and is
+ * followed by the raw values as little-endian doubles, so it can be loaded
+ * without any parsing.
+ * <p>
+ * Header layout (little-endian, 48 bytes):
+ * <pre>
+ *  0  int    magic "SDS1"
+ *  4  int    format version
+ *  8  long   count of value
+ * 16  int    flags, bit 0 set when the values are sorted ascending
+ * 20  int    reserved, 0
+ * 24  double smallest value
+ * 32  double largest value
+ * 40  long   CRC32C of the value bytes
+ * </pre>
+ *
+ */
+public final class BinaryDataset {
+	static final int MAGIC = 0x31534453;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 48;
+	static final int FLAG_SORTED = 1;
+
+	/** Largest region mapped at once. */
+	private static final long MAP_SIZE = 1L << 30;
+
+	private static final MetricCounter BYTES_READ = Metrics.counter("bytes.read");
+
+	private final double[] values;
+	private final boolean sorted;
+	private final double min;
+	private final double max;
+
+	private BinaryDataset(double[] values, boolean sorted, double min, double max) {
+		this.values = values;
+		this.sorted = sorted;
+		this.min = min;
+		this.max = max;
+	}
+
+	/**
+	 * Return true if the file starts with the binary data set header.
+	 * @param fileName path of the file to be checked.
+	 * @return true if the file is a binary data set.
+	 */
+	public static boolean isBinary(String fileName) {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+			return channel.read(magic, 0) == 4 && magic.getInt(0) == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Open a binary data set by memory mapping it and copy its values into an
+	 * array. The checksum is verified on the way.
+	 * @param fileName path of the file to be read.
+	 * @return the data set in the file.
+	 * @throws IOException if the file cannot be read, is not a binary data set
+	 *         or fails the checksum.
+	 */
+	public static BinaryDataset read(String fileName) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			ByteBuffer header = readHeader(channel, fileName);
+			long count = header.getLong(8);
+			if (count > Integer.MAX_VALUE - 8) {
+				throw new IOException("Unsupported count of value: " + count);
+			}
+
+			double[] values = new double[(int) count];
+			CRC32C checksum = new CRC32C();
+			long offset = 0;
+			int index = 0;
+			long length = count * Double.BYTES;
+			while (offset < length) {
+				long size = Math.min(MAP_SIZE, length - offset);
+				MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + offset, size);
+				checksum.update(region.duplicate());
+				region.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values, index, (int) (size / Double.BYTES));
+				index += (int) (size / Double.BYTES);
+				offset += size;
+			}
+			verify(header, checksum, fileName);
+			BYTES_READ.add(channel.size());
+			boolean sorted = (header.getInt(16) & FLAG_SORTED) != 0;
+			return new BinaryDataset(values, sorted, header.getDouble(24), header.getDouble(32));
+		}
+	}
+
+	/**
+	 * Append the values of a binary data set to an off-heap array. Unlike
+	 * {@link #read(String)} the file may hold more than 2^31 values; they are
+	 * copied region by region without passing through the heap.
+	 * @param fileName path of the file to be read.
+	 * @param dest     array the values are appended to.
+	 * @return true if the file is marked as sorted.
+	 * @throws IOException if the file cannot be read, is not a binary data set
+	 *         or fails the checksum.
+	 */
+	public static boolean readInto(String fileName, OffHeapDoubleArray dest) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			ByteBuffer header = readHeader(channel, fileName);
+			CRC32C checksum = new CRC32C();
+			long offset = 0;
+			long length = header.getLong(8) * Double.BYTES;
+			while (offset < length) {
+				long size = Math.min(MAP_SIZE, length - offset);
+				MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + offset, size);
+				checksum.update(region.duplicate());
+				dest.addAll(region.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+				offset += size;
+			}
+			verify(header, checksum, fileName);
+			BYTES_READ.add(channel.size());
+			return (header.getInt(16) & FLAG_SORTED) != 0;
+		}
+	}
+
+	/**
+	 * Read and check the header of an open binary data set file.
+	 */
+	private static ByteBuffer readHeader(FileChannel channel, String fileName) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		if (channel.read(header, 0) != HEADER_SIZE || header.getInt(0) != MAGIC) {
+			throw new IOException(fileName + " is not a binary data set.");
+		}
+		if (header.getInt(4) != VERSION) {
+			throw new IOException("Unsupported binary data set version: " + header.getInt(4));
+		}
+		long count = header.getLong(8);
+		if (count < 0 || count > Long.MAX_VALUE / Double.BYTES - HEADER_SIZE) {
+			throw new IOException("Unsupported count of value: " + count);
+		}
+		if (channel.size() != HEADER_SIZE + count * Double.BYTES) {
+			throw new IOException(fileName + " is truncated.");
+		}
+		return header;
+	}
+
+	private static void verify(ByteBuffer header, CRC32C checksum, String fileName) throws IOException {
+		if (checksum.getValue() != header.getLong(40)) {
+			throw new IOException(fileName + " failed the checksum.");
+		}
+	}
+
+	/**
+	 * Write values as a binary data set.
+	 * @param fileName path of the file to be written.
+	 * @param values   values to be written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(String fileName, double[] values) throws IOException {
+		try (BinaryDatasetWriter writer = new BinaryDatasetWriter(fileName)) {
+			writer.acceptAll(values);
+		}
+	}
+
+	/**
+	 * Return the values of the data set.
+	 * @return the values, owned by the caller.
+	 */
+	public double[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Return true if the values are sorted ascending.
+	 * @return true if the values are sorted.
+	 */
+	public boolean isSorted() {
+		return sorted;
+	}
+
+	/**
+	 * Return the smallest value recorded in the header.
+	 * @return the smallest value.
+	 */
+	public double getMin() {
+		return min;
+	}
+
+	/**
+	 * Return the largest value recorded in the header.
+	 * @return the largest value.
+	 */
+	public double getMax() {
+		return max;
+	}
+}
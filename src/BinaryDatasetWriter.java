@@ -0,0 +1,109 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes a {@link BinaryDataset} file one value at a time. Values are staged
+ * in a direct buffer and written in large blocks; count, min, max, the
+ * checksum and whether the values arrived in ascending order are tracked on
+ * the way and written into the header when the writer is closed.
+ *
+ */
+public class BinaryDatasetWriter implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final CRC32C checksum;
+	private long count;
+	private double min;
+	private double max;
+	private double last;
+	private boolean sorted;
+
+	/**
+	 * Constructor. Create or truncate the file and reserve its header.
+	 * @param fileName path of the file to be written.
+	 * @throws IOException if the file cannot be opened.
+	 */
+	public BinaryDatasetWriter(String fileName) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		channel.position(BinaryDataset.HEADER_SIZE);
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		checksum = new CRC32C();
+		count = 0;
+		min = Double.POSITIVE_INFINITY;
+		max = Double.NEGATIVE_INFINITY;
+		last = Double.NEGATIVE_INFINITY;
+		sorted = true;
+	}
+
+	/**
+	 * Append a value to the file.
+	 * @param value the value to be written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void accept(double value) throws IOException {
+		if (!buffer.hasRemaining()) {
+			flush();
+		}
+		buffer.putDouble(value);
+		count++;
+		min = value < min ? value : min;
+		max = value > max ? value : max;
+		sorted &= Double.compare(last, value) <= 0;
+		last = value;
+	}
+
+	/**
+	 * Append all values of an array to the file.
+	 * @param values the values to be written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void acceptAll(double[] values) throws IOException {
+		for (double value : values) {
+			accept(value);
+		}
+	}
+
+	/**
+	 * Write the remaining values and the header, then close the file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+			ByteBuffer header = ByteBuffer.allocate(BinaryDataset.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(BinaryDataset.MAGIC);
+			header.putInt(BinaryDataset.VERSION);
+			header.putLong(count);
+			header.putInt(sorted ? BinaryDataset.FLAG_SORTED : 0);
+			header.putInt(0);
+			header.putDouble(min);
+			header.putDouble(max);
+			header.putLong(checksum.getValue());
+			header.flip();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		checksum.update(buffer.duplicate());
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -1,6 +1,5 @@
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -12,17 +11,29 @@ import java.util.Scanner;
  *
  */
 public class Calculator {
+	// Time spent loading, not counting the wait for the user's input.
+	private static final MetricTimer USER_LOAD_TIMER = Metrics.timer("calculator.loadFromUser");
+	private static final MetricTimer FILE_LOAD_TIMER = Metrics.timer("calculator.loadFromFile");
+	private static final MetricTimer SUMMARIZE_TIMER = Metrics.timer("calculator.summarizeFile");
+	private static final MetricTimer GENERATOR_LOAD_TIMER = Metrics.timer("calculator.loadFromGenerator");
+	// Most frequent values printed by summarizeFile.
+	private static final int MAX_FREQUENT_VALUES = 5;
 
 	private Statistics model;
+	private SnapshotCache snapshots;
 	private Scanner scanner;
 	private String seperator;
 
 	/**
-	 * Constructor. Initialize the descriptive statistics model, the user input
+	 * Constructor. Initialize the descriptive statistics model, which runs on
+	 * the common ForkJoinPool for large data sets, the snapshot cache of text
+	 * files (off unless statistics.snapshot.dir is set) and the user input
 	 * scanner.
 	 */
 	public Calculator() {
 		model = new Statistics();
+		model.setParallelExecution(ParallelExecution.commonPool());
+		snapshots = SnapshotCache.fromSystemProperties();
 		scanner = new Scanner(System.in);
 		seperator = "";
 		for (int i = 0; i < 80; i++) {
@@ -85,22 +96,28 @@ public class Calculator {
 		System.out.println(
 				"Please enter numbers seperated by commas, press enter to ternimate input (1000 numbers at most): ");
 		String input = scanner.nextLine();
-		ArrayList<Double> dataset = new ArrayList<Double>();
+		long start = USER_LOAD_TIMER.start();
 		try {
 			String[] data = input.split(",");
-			for (int i = 0; i < 1000 && i < data.length; i++) {
-				dataset.add(Double.parseDouble(data[i]));
+			double[] dataset = new double[Math.min(1000, data.length)];
+			for (int i = 0; i < dataset.length; i++) {
+				dataset[i] = Double.parseDouble(data[i]);
 			}
 			model.readData(dataset);
 		} catch (Exception e) {
 			System.out.println("Invalid input.\n");
 			return false;
+		} finally {
+			USER_LOAD_TIMER.stop(start);
 		}
 		return true;
 	}
 
 	/**
-	 * Load data set from a external file specified by a user.
+	 * Load data set from a external file specified by a user. The file can be
+	 * either text with one number per line or a binary data set. When the
+	 * snapshot cache is on, text files are loaded through it, so reloading an
+	 * unchanged file skips parsing and sorting.
 	 * 
 	 * @return true if the process is executed successfully. Otherwise, return
 	 *         false.
@@ -109,17 +126,59 @@ public class Calculator {
 		System.out.println(seperator);
 		System.out.print("Please enter full path to the file which contains data set: ");
 		String fileName = scanner.nextLine();
-		ArrayList<Double> dataset = new ArrayList<Double>();
+		long start = FILE_LOAD_TIMER.start();
 		try {
-			Scanner reader = new Scanner(new File(fileName));
-			while (reader.hasNextLine()) {
-				dataset.add(Double.parseDouble(reader.nextLine()));
+			if (BinaryDataset.isBinary(fileName)) {
+				model.readBinary(fileName);
 			}
-			reader.close();
-			model.readData(dataset);
-		} catch (FileNotFoundException e) {
+			else {
+				snapshots.load(fileName, model, Runtime.getRuntime().availableProcessors());
+			}
+		} catch (IOException e) {
+			System.out.println("An error occured when reading " + fileName + "\n");
+			return false;
+		} finally {
+			FILE_LOAD_TIMER.stop(start);
+		}
+		return true;
+	}
+
+	/**
+	 * Summarize an external file specified by a user without loading it into
+	 * the calculator. Values are fed one line at a time into a streaming
+	 * accumulator, so files larger than the available memory can be used. Only
+	 * the measures that do not need the whole data set are printed, with the
+	 * median estimated by a quantile sketch, the number of distinct values by
+	 * a HyperLogLog sketch and the most frequent values by Space-Saving.
+	 * 
+	 * @return true if the process is executed successfully. Otherwise, return
+	 *         false.
+	 */
+	public boolean summarizeFile() {
+		System.out.println(seperator);
+		System.out.print("Please enter full path to the file which contains data set: ");
+		String fileName = scanner.nextLine();
+		StreamingStatistics accumulator = new StreamingStatistics(QuantileSketch.DEFAULT_K);
+		DistinctCountSketch distinct = new DistinctCountSketch();
+		FrequentValues frequent = new FrequentValues();
+		long start = SUMMARIZE_TIMER.start();
+		try {
+			NumberFileReader.forEach(fileName, accumulator.andThen(distinct).andThen(frequent));
+		} catch (IOException e) {
 			System.out.println("An error occured when reading " + fileName + "\n");
 			return false;
+		} finally {
+			SUMMARIZE_TIMER.stop(start);
+		}
+		accumulator.printAll();
+		System.out.println("Distinct values (approximate): " + distinct.getEstimate());
+		double[] top = frequent.getTopValues(MAX_FREQUENT_VALUES);
+		if (top.length > 0) {
+			System.out.print("Most frequent values (approximate count):");
+			for (double value : top) {
+				System.out.print(" " + value + " (" + frequent.getEstimate(value) + ")");
+			}
+			System.out.println();
 		}
 		return true;
 	}
@@ -146,8 +205,13 @@ public class Calculator {
 				double upperBound = Double.parseDouble(input[1]);
 				int count = Integer.parseInt(input[2]);
 
-				ArrayList<Double> dataset = generator.generateDouble(lowerBound, upperBound, count);
-				model.readData(dataset);
+				long start = GENERATOR_LOAD_TIMER.start();
+				try {
+					double[] dataset = generator.generateDouble(lowerBound, upperBound, count);
+					model.readData(dataset);
+				} finally {
+					GENERATOR_LOAD_TIMER.stop(start);
+				}
 				isFinished = true;
 			} catch (IllegalArgumentException e) {
 				System.out.print("Invalid parameters for the random number generator: \n");
@@ -173,8 +237,9 @@ public class Calculator {
 			System.out.println(seperator);
 			System.out.println("Choose a way to input your data: ");
 			System.out.println(
-					"    1. Manual input\n    2. Load from an external file\n    3. Load from data generated by a random number generator");
-			System.out.print("Your choice (1-3): ");
+					"    1. Manual input\n    2. Load from an external file\n    3. Load from data generated by a random number generator\n"
+					+ "    4. Summarize a large external file without loading it");
+			System.out.print("Your choice (1-4): ");
 			String choice = scanner.nextLine();
 			switch (choice) {
 			case "1":
@@ -186,6 +251,9 @@ public class Calculator {
 			case "3":
 				isFinished = loadFromGenerator();
 				break;
+			case "4":
+				summarizeFile();
+				break;
 			default:
 				System.out.println("Invalid choice, try again.\n");
 			}
@@ -276,11 +344,37 @@ public class Calculator {
 
 	/**
 	 * The main method is where the calculator is created, turned on and closed.
+	 * With program arguments the calculator runs in batch mode instead, see
+	 * {@link BatchMode}, and exits with a non-zero status if a file fails.
+	 * With --serve as first argument it serves data sets over HTTP instead,
+	 * see {@link StatisticsServer}.
+	 * Metrics are dumped periodically when asked for by system properties,
+	 * see {@link Metrics}.
 	 * 
 	 * @param args program arguments.
 	 */
 	public static void main(String[] args)
 	{
+		Metrics.startDumpFromSystemProperties();
+		if (args.length > 0 && args[0].equals("--serve")) {
+			try {
+				StatisticsServer.serve(Arrays.copyOfRange(args, 1, args.length));
+			} catch (IllegalArgumentException | IOException e) {
+				System.err.println(e.getMessage());
+				System.exit(2);
+			}
+			return;
+		}
+		if (args.length > 0) {
+			int status;
+			try {
+				status = new BatchMode(args).run(System.in, System.out);
+			} catch (IllegalArgumentException | IOException e) {
+				System.err.println(e.getMessage());
+				status = 2;
+			}
+			System.exit(status);
+		}
 		Calculator calculator = new Calculator();
 		calculator.start();
 		calculator.close();
@@ -0,0 +1,413 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A data set of several named numeric columns, read from a CSV file with a
+ * header line. The file is parsed in a single pass, straight from the bytes
+ * as in {@link NumberFileReader}, into one primitive array per column, and
+ * the measures of every column can then be computed in parallel.
+ * <p>
+ * Fields are separated by commas and may be enclosed in double quotes. Blank
+ * fields are missing values and are skipped, so columns may hold different
+ * numbers of values. Only the selected columns are parsed when columns are
+ * selected by name.
+ *
+ */
+public final class ColumnarDataset {
+	/** Size of the read buffer. */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private static final MetricTimer PARSE_TIMER = Metrics.timer("csv.parse");
+	private static final MetricTimer MEASURE_TIMER = Metrics.timer("csv.measure");
+	private static final MetricCounter VALUES_PARSED = Metrics.counter("values.parsed");
+	private static final MetricCounter BYTES_READ = Metrics.counter("bytes.read");
+
+	private final String[] names;
+	private final double[][] columns;
+	private final long rows;
+
+	private ColumnarDataset(String[] names, double[][] columns, long rows) {
+		this.names = names;
+		this.columns = columns;
+		this.rows = rows;
+	}
+
+	/**
+	 * Read every column of a CSV file.
+	 * @param fileName path of the file to be read.
+	 * @return the columns of the file in header order.
+	 * @throws IOException if the file cannot be read, has no header or a line
+	 *         has more fields than the header.
+	 * @throws NumberFormatException if a field is not a number.
+	 */
+	public static ColumnarDataset read(String fileName) throws IOException, NumberFormatException {
+		return read(fileName, (String[]) null);
+	}
+
+	/**
+	 * Read the given columns of a CSV file. The other columns are skipped
+	 * without being parsed, so they do not need to be numeric.
+	 * @param fileName path of the file to be read.
+	 * @param selected names of the columns to be read, or null for every column.
+	 * @return the selected columns in the order they were given.
+	 * @throws IOException if the file cannot be read, has no header or a line
+	 *         has more fields than the header.
+	 * @throws NumberFormatException if a field of a selected column is not a
+	 *         number.
+	 * @throws IllegalArgumentException if a selected column is not in the header
+	 *         or is selected more than once.
+	 */
+	public static ColumnarDataset read(String fileName, String... selected)
+			throws IOException, NumberFormatException, IllegalArgumentException {
+		long start = PARSE_TIMER.start();
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			Parser parser = new Parser(selected);
+			parse(channel, parser);
+			if (parser.names == null) {
+				throw new IOException("The file has no header line: " + fileName);
+			}
+			ColumnarDataset dataset = parser.toDataset();
+			long values = 0;
+			for (double[] column : dataset.columns) {
+				values += column.length;
+			}
+			BYTES_READ.add(channel.size());
+			VALUES_PARSED.add(values);
+			return dataset;
+		} finally {
+			PARSE_TIMER.stop(start);
+		}
+	}
+
+	/**
+	 * Return number of columns.
+	 * @return number of columns.
+	 */
+	public int getColumnCount() {
+		return names.length;
+	}
+
+	/**
+	 * Return number of data lines, not counting the header and blank lines.
+	 * @return number of rows.
+	 */
+	public long getRowCount() {
+		return rows;
+	}
+
+	/**
+	 * Return the names of the columns.
+	 * @return a new array which contains the column names in order.
+	 */
+	public String[] getColumnNames() {
+		return names.clone();
+	}
+
+	/**
+	 * Return the position of a column.
+	 * @param name name of the column.
+	 * @return index of the first column with that name, or -1 if there is none.
+	 */
+	public int getColumnIndex(String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Return the values of a column, missing values left out.
+	 * @param index index of the column.
+	 * @return a new array which contains the values in file order.
+	 */
+	public double[] getColumn(int index) {
+		return columns[index].clone();
+	}
+
+	/**
+	 * Load every column into its own model and compute the measures of all
+	 * columns at once, one column per task on a pool of the given size. The
+	 * models keep their results, so every measure is then answered from the
+	 * cache or from the sorted values without another scan.
+	 * @param threads maximum number of columns measured at once.
+	 * @return one model per column, in column order.
+	 * @throws IllegalArgumentException if threads is not positive.
+	 * @throws InterruptedException if interrupted while waiting for the tasks.
+	 */
+	public Statistics[] measure(int threads) throws IllegalArgumentException, InterruptedException {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("The number of threads should be greater than 0, your number: "
+					+ threads);
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, columns.length)));
+		long start = MEASURE_TIMER.start();
+		try {
+			List<Future<Statistics>> futures = new ArrayList<Future<Statistics>>();
+			for (double[] column : columns) {
+				futures.add(pool.submit(() -> measure(column)));
+			}
+			Statistics[] models = new Statistics[columns.length];
+			for (int i = 0; i < models.length; i++) {
+				models[i] = futures.get(i).get();
+			}
+			return models;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		} finally {
+			pool.shutdownNow();
+			MEASURE_TIMER.stop(start);
+		}
+	}
+
+	/**
+	 * Load one column and compute the moments, the median and the mode count,
+	 * which sorts it.
+	 */
+	private static Statistics measure(double[] column) {
+		Statistics model = new Statistics();
+		model.readData(column);
+		if (column.length > 0) {
+			model.getSummary();
+			model.getMedian();
+			model.getModeCount();
+		}
+		return model;
+	}
+
+	/**
+	 * Pass every line of the channel to the parser.
+	 */
+	private static void parse(FileChannel channel, Parser parser) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		long position = 0;
+		while (true) {
+			int read = channel.read(buffer, position);
+			boolean eof = read < 0;
+			if (!eof) {
+				position += read;
+			}
+			int limit = buffer.position();
+			int start = 0;
+			for (int i = 0; i < limit; i++) {
+				if (buffer.get(i) == '\n') {
+					parser.line(buffer, start, i);
+					start = i + 1;
+				}
+			}
+			if (eof) {
+				if (start < limit) {
+					parser.line(buffer, start, limit);
+				}
+				return;
+			}
+			if (start == 0 && limit == buffer.capacity()) {
+				throw new IOException("Line " + (parser.lines + 1) + " is longer than " + BUFFER_SIZE + " bytes.");
+			}
+
+			// Move the partial line to the front of the buffer.
+			buffer.flip();
+			buffer.position(start);
+			buffer.compact();
+		}
+	}
+
+	private static boolean isSpace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+
+	/**
+	 * Splits lines into fields and appends the fields of the selected columns
+	 * to one builder per column.
+	 */
+	private static final class Parser {
+		private final String[] selected;
+		private String[] names;
+		// Column of each field of a line, or -1 if the field is skipped.
+		private int[] targets;
+		private DoubleArrayBuilder[] builders;
+		private long lines;
+		private long rows;
+
+		Parser(String[] selected) throws IllegalArgumentException {
+			if (selected != null) {
+				for (int i = 0; i < selected.length; i++) {
+					if (indexOf(selected, selected[i]) != i) {
+						throw new IllegalArgumentException("The column should be selected once, your column: "
+								+ selected[i]);
+					}
+				}
+			}
+			this.selected = selected;
+		}
+
+		/**
+		 * Parse bytes [start, end) of the buffer as one line.
+		 */
+		void line(ByteBuffer buffer, int start, int end) throws IOException {
+			lines++;
+			while (end > start && isSpace(buffer.get(end - 1))) {
+				end--;
+			}
+			if (start == end) {
+				return;
+			}
+			if (names == null) {
+				header(buffer, start, end);
+				return;
+			}
+			rows++;
+			int field = 0;
+			int from = start;
+			boolean quoted = false;
+			for (int i = start; i <= end; i++) {
+				if (i < end) {
+					byte b = buffer.get(i);
+					if (b == '"') {
+						quoted = !quoted;
+					}
+					if (b != ',' || quoted) {
+						continue;
+					}
+				}
+				if (field == targets.length) {
+					throw new IOException("Line " + lines + " has more fields than the header: " + (field + 1));
+				}
+				int target = targets[field];
+				if (target >= 0) {
+					value(buffer, from, i, target);
+				}
+				field++;
+				from = i + 1;
+			}
+		}
+
+		/**
+		 * Parse one field and append it to its column unless it is blank.
+		 */
+		private void value(ByteBuffer buffer, int start, int end, int target) throws NumberFormatException {
+			while (start < end && isSpace(buffer.get(start))) {
+				start++;
+			}
+			while (end > start && isSpace(buffer.get(end - 1))) {
+				end--;
+			}
+			if (end - start >= 2 && buffer.get(start) == '"' && buffer.get(end - 1) == '"') {
+				start++;
+				end--;
+				while (start < end && isSpace(buffer.get(start))) {
+					start++;
+				}
+				while (end > start && isSpace(buffer.get(end - 1))) {
+					end--;
+				}
+			}
+			if (start == end) {
+				return;
+			}
+			try {
+				builders[target].add(NumberFileReader.parseDouble(buffer, start, end));
+			} catch (NumberFormatException e) {
+				throw new NumberFormatException("Line " + lines + ", column " + names[target] + ": "
+						+ e.getMessage());
+			}
+		}
+
+		/**
+		 * Read the column names and decide which fields are parsed.
+		 */
+		private void header(ByteBuffer buffer, int start, int end) throws IllegalArgumentException {
+			byte[] bytes = new byte[end - start];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(start + i);
+			}
+			String[] fields = split(new String(bytes, StandardCharsets.UTF_8));
+			targets = new int[fields.length];
+			if (selected == null) {
+				names = fields;
+				for (int i = 0; i < fields.length; i++) {
+					targets[i] = i;
+				}
+			}
+			else {
+				names = selected.clone();
+				Arrays.fill(targets, -1);
+				for (int i = 0; i < selected.length; i++) {
+					int field = indexOf(fields, selected[i]);
+					if (field < 0) {
+						throw new IllegalArgumentException("The column should be in the header, your column: "
+								+ selected[i]);
+					}
+					targets[field] = i;
+				}
+			}
+			builders = new DoubleArrayBuilder[names.length];
+			for (int i = 0; i < builders.length; i++) {
+				builders[i] = new DoubleArrayBuilder();
+			}
+		}
+
+		ColumnarDataset toDataset() {
+			double[][] columns = new double[builders.length][];
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = builders[i].toArray();
+			}
+			return new ColumnarDataset(names, columns, rows);
+		}
+
+		/**
+		 * Split a header line at commas outside quotes, removing the quotes.
+		 */
+		private static String[] split(String line) {
+			List<String> fields = new ArrayList<String>();
+			StringBuilder field = new StringBuilder();
+			boolean quoted = false;
+			for (int i = 0; i < line.length(); i++) {
+				char c = line.charAt(i);
+				if (c == '"') {
+					if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+						field.append(c);
+						i++;
+					}
+					else {
+						quoted = !quoted;
+					}
+				}
+				else if (c == ',' && !quoted) {
+					fields.add(field.toString().trim());
+					field.setLength(0);
+				}
+				else {
+					field.append(c);
+				}
+			}
+			fields.add(field.toString().trim());
+			return fields.toArray(new String[0]);
+		}
+
+		private static int indexOf(String[] fields, String name) {
+			for (int i = 0; i < fields.length; i++) {
+				if (fields[i].equals(name)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+}
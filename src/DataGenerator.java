@@ -1,7 +1,13 @@
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A generator that generates random numbers from a uniform distribution.
@@ -10,6 +16,9 @@ import java.util.Random;
 
 public class DataGenerator
 {
+    /** Number of values generated by one task when writing a file. */
+    private static final int CHUNK_SIZE = 1 << 15;
+
     private Random random;
 
     /**
@@ -34,10 +43,10 @@ public class DataGenerator
      * @param lowerBound the lower bound (inclusive).
      * @param upperBound the upper bound (exclusive).
      * @param count number of value to be generated.
-     * @return an ArrayList which contains a set of pseudorandom value.
-     * @throws Exception
+     * @return an array which contains a set of pseudorandom value.
+     * @throws IllegalArgumentException exception when there are bad arguments.
      */
-    public ArrayList<Double> generateDouble(double lowerBound, double upperBound, int count) throws IllegalArgumentException {
+    public double[] generateDouble(double lowerBound, double upperBound, int count) throws IllegalArgumentException {
         if (upperBound <= lowerBound) {
             throw new IllegalArgumentException("The upper bound should be bigger than the lower bound.\n"
                     + "Your upper bound: " + upperBound + ", your lower bound: " + lowerBound);
@@ -47,16 +56,18 @@ public class DataGenerator
             throw new IllegalArgumentException("The count of number should be greater than 0, your count: " + count);
         }
 
-        ArrayList<Double> dataset = new ArrayList<Double>();
+        double[] dataset = new double[count];
         for (int i = 0; i < count; i++) {
-            double randomNum = random.nextDouble() * (upperBound - lowerBound) + lowerBound;
-            dataset.add(randomNum);
+            dataset[i] = random.nextDouble() * (upperBound - lowerBound) + lowerBound;
         }
         return dataset;
     }
 
     /**
      * Generate a set of pseudorandom value and write it to a specified file.
+     * Values are written with full precision through Double.toString, which
+     * creates a String per value; pass a number of decimal places to format
+     * without allocating.
      * @param lowerBound the lower bound (inclusive).
      * @param upperBound the upper bound (exclusive).
      * @param count count number of value to be generated.
@@ -64,6 +75,35 @@ public class DataGenerator
      * @throws IllegalArgumentException exception when there are bad arguments.
      */
     public void generateDouble(double lowerBound, double upperBound, int count, String fileName) throws IllegalArgumentException
+    {
+        generateDouble(lowerBound, upperBound, count, fileName, DoubleFormatter.FULL_PRECISION);
+    }
+
+    /**
+     * Generate a set of pseudorandom value and write it to a specified file,
+     * one value per line. The values are generated in chunks of fixed size,
+     * each chunk with its own SplittableRandom stream split from a root stream
+     * in chunk order, so the file is the same for a given seed no matter how
+     * many threads are used. Chunks are formatted in parallel into reused byte
+     * buffers and written to the file in order.
+     * @param lowerBound the lower bound (inclusive).
+     * @param upperBound the upper bound (exclusive).
+     * @param count count number of value to be generated.
+     * @param fileName path of the file to be written.
+     * @param decimals number of decimal places to be written (0 to 15), or
+     *        DoubleFormatter.FULL_PRECISION for values that parse back exactly.
+     * @throws IllegalArgumentException exception when there are bad arguments.
+     */
+    public void generateDouble(double lowerBound, double upperBound, int count, String fileName, int decimals) throws IllegalArgumentException
+    {
+        generateDouble(lowerBound, upperBound, count, fileName, decimals, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Generate a set of pseudorandom value and write it to a specified file,
+     * formatting on at most the given number of threads.
+     */
+    void generateDouble(double lowerBound, double upperBound, int count, String fileName, int decimals, int maxThreads) throws IllegalArgumentException
     {
         if (upperBound <= lowerBound)
         {
@@ -74,22 +114,83 @@ public class DataGenerator
         if (count <= 0) {
             throw new IllegalArgumentException("The count of number should be greater than 0, your count: " + count);
         }
-        try
+
+        if (decimals != DoubleFormatter.FULL_PRECISION && (decimals < 0 || decimals > DoubleFormatter.MAX_DECIMALS)) {
+            throw new IllegalArgumentException("The number of decimal places should be between 0 and "
+                    + DoubleFormatter.MAX_DECIMALS + ", your decimal places: " + decimals);
+        }
+
+        SplittableRandom root = new SplittableRandom(random.nextLong());
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int threads = Math.min(chunks, maxThreads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        byte[][] buffers = new byte[threads][CHUNK_SIZE * (DoubleFormatter.MAX_LENGTH + 1)];
+        try (FileOutputStream out = new FileOutputStream(fileName))
         {
-            FileWriter myWriter = new FileWriter(fileName);
-            String content = "";
-            for (int i = 0; i < count; i++) {
-                content += Double.toString(random.nextDouble() * (upperBound - lowerBound) + lowerBound) + "\n";
-                if (i % 10000 == 0) {
-                    myWriter.write(content);
-                    content = "";
+            List<Future<Integer>> lengths = new ArrayList<Future<Integer>>();
+            for (int first = 0; first < chunks; first += threads) {
+                // Format one batch of chunks in parallel, then write them in order.
+                lengths.clear();
+                for (int j = 0; j < threads && first + j < chunks; j++) {
+                    int chunk = first + j;
+                    int size = Math.min(CHUNK_SIZE, count - chunk * CHUNK_SIZE);
+                    SplittableRandom stream = root.split();
+                    byte[] buffer = buffers[j];
+                    lengths.add(pool.submit(() -> fillChunk(stream, lowerBound, upperBound, size, decimals, buffer)));
+                }
+                for (int j = 0; j < lengths.size(); j++) {
+                    out.write(buffers[j], 0, lengths.get(j).get());
                 }
             }
+        }
+        catch (IOException | ExecutionException e)
+        {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            System.out.println("An error occurred.");
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
 
-            if (content != "") {
-                myWriter.write(content);
+    /**
+     * Generate a set of pseudorandom value and write it to a specified file in
+     * the binary data set format. For the same seed the values are the same as
+     * those of the text file written by generateDouble.
+     * @param lowerBound the lower bound (inclusive).
+     * @param upperBound the upper bound (exclusive).
+     * @param count count number of value to be generated.
+     * @param fileName path of the file to be written.
+     * @throws IllegalArgumentException exception when there are bad arguments.
+     */
+    public void generateBinary(double lowerBound, double upperBound, int count, String fileName) throws IllegalArgumentException
+    {
+        if (upperBound <= lowerBound)
+        {
+            throw new IllegalArgumentException("The upper bound should be bigger than the lower bound.\n"
+                    + "Your upper bound: " + upperBound + ", your lower bound: " + lowerBound);
+        }
+
+        if (count <= 0) {
+            throw new IllegalArgumentException("The count of number should be greater than 0, your count: " + count);
+        }
+
+        SplittableRandom root = new SplittableRandom(random.nextLong());
+        try (BinaryDatasetWriter writer = new BinaryDatasetWriter(fileName))
+        {
+            for (int first = 0; first < count; first += CHUNK_SIZE) {
+                SplittableRandom stream = root.split();
+                int size = Math.min(CHUNK_SIZE, count - first);
+                for (int i = 0; i < size; i++) {
+                    writer.accept(stream.nextDouble() * (upperBound - lowerBound) + lowerBound);
+                }
             }
-            myWriter.close();
         }
         catch (IOException e)
         {
@@ -97,4 +198,19 @@ public class DataGenerator
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Generate one chunk of values and format it into a buffer.
+     * @return number of bytes written into the buffer.
+     */
+    private static int fillChunk(SplittableRandom stream, double lowerBound, double upperBound, int size, int decimals, byte[] buffer)
+    {
+        int pos = 0;
+        for (int i = 0; i < size; i++) {
+            double value = stream.nextDouble() * (upperBound - lowerBound) + lowerBound;
+            pos = DoubleFormatter.format(value, decimals, buffer, pos);
+            buffer[pos++] = '\n';
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,227 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A mergeable estimate of the number of distinct values (HyperLogLog). Each
+ * value is hashed to 64 bits; the first p bits choose one of 2^p registers,
+ * which keeps the longest run of leading zeros seen in the remaining bits.
+ * The memory is 2^p bytes whatever the number of values, and the relative
+ * standard error of the estimate is about 1.04 / sqrt(2^p), 0.8% for the
+ * default precision of 14 (16 KB), without a bias at small or large counts.
+ * <p>
+ * Values are distinct as in {@link Modes}: by their bits, so 0.0 and -0.0 are
+ * different values and all NaNs are one. The sketch is a DoubleConsumer, so
+ * any loader that reports values one at a time can feed it directly.
+ *
+ */
+public class DistinctCountSketch implements DoubleConsumer {
+	/** Default precision, 16 KB of registers. */
+	public static final int DEFAULT_PRECISION = 14;
+	/** Smallest accepted precision. */
+	public static final int MIN_PRECISION = 4;
+	/** Largest accepted precision. */
+	public static final int MAX_PRECISION = 18;
+	private static final int MAGIC = 0x484c4c31;
+
+	private final int precision;
+	private final byte[] registers;
+
+	/**
+	 * Constructor. Create an empty sketch with the default precision.
+	 */
+	public DistinctCountSketch() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Constructor. Create an empty sketch of 2^precision registers.
+	 * @param precision number of index bits, between 4 and 18.
+	 * @throws IllegalArgumentException if precision is out of range.
+	 */
+	public DistinctCountSketch(int precision) throws IllegalArgumentException {
+		if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("The precision should be between " + MIN_PRECISION + " and "
+					+ MAX_PRECISION + ", your precision: " + precision);
+		}
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+	/**
+	 * Add a value to the sketch.
+	 * @param value the value to be added.
+	 */
+	@Override
+	public void accept(double value) {
+		long hash = hash(Double.doubleToLongBits(value));
+		int index = (int) (hash >>> (64 - precision));
+		// The marker bit bounds the rank when the remaining bits are all 0.
+		int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+		if (rank > registers[index]) {
+			registers[index] = (byte) rank;
+		}
+	}
+
+	/**
+	 * Add all values of an array to the sketch.
+	 * @param values the values to be added.
+	 */
+	public void acceptAll(double[] values) {
+		for (double value : values) {
+			accept(value);
+		}
+	}
+
+	/**
+	 * Remove every value from the sketch.
+	 */
+	public void clear() {
+		Arrays.fill(registers, (byte) 0);
+	}
+
+	/**
+	 * Merge another sketch into this one, as if every value added to the other
+	 * had been added to this one.
+	 * @param other sketch built from another part of the data.
+	 * @throws IllegalArgumentException if the precisions differ.
+	 */
+	public void merge(DistinctCountSketch other) throws IllegalArgumentException {
+		if (other.precision != precision) {
+			throw new IllegalArgumentException("The precision of the other sketch should be " + precision
+					+ ", your precision: " + other.precision);
+		}
+		for (int i = 0; i < registers.length; i++) {
+			if (other.registers[i] > registers[i]) {
+				registers[i] = other.registers[i];
+			}
+		}
+	}
+
+	/**
+	 * Return the precision of the sketch.
+	 * @return number of index bits.
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Return the estimated number of distinct values added. Uses the improved
+	 * estimator of Ertl (2017) on the histogram of the registers, which has
+	 * no bias to correct at any count, unlike the raw estimate switched over
+	 * to linear counting at 2.5 * 2^p.
+	 * @return the estimated number of distinct values.
+	 */
+	public long getEstimate() {
+		int m = registers.length;
+		int q = 64 - precision;
+		int[] counts = new int[q + 2];
+		for (byte register : registers) {
+			counts[register]++;
+		}
+		double z = m * tau(1 - (double) counts[q + 1] / m);
+		for (int k = q; k >= 1; k--) {
+			z = 0.5 * (z + counts[k]);
+		}
+		z += m * sigma((double) counts[0] / m);
+		return Math.round(m / (2 * Math.log(2)) * m / z);
+	}
+
+	/**
+	 * Correction for the empty registers, x plus the sum of x^(2^k) * 2^(k-1)
+	 * for k &gt;= 1; infinite for an empty sketch so the estimate is 0.
+	 */
+	private static double sigma(double x) {
+		if (x == 1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double y = 1;
+		double z = x;
+		double previous;
+		do {
+			x *= x;
+			previous = z;
+			z += x * y;
+			y += y;
+		} while (z != previous);
+		return z;
+	}
+
+	/**
+	 * Correction for the registers at the largest rank.
+	 */
+	private static double tau(double x) {
+		if (x == 0 || x == 1) {
+			return 0;
+		}
+		double y = 1;
+		double z = 1 - x;
+		double previous;
+		do {
+			x = Math.sqrt(x);
+			previous = z;
+			y *= 0.5;
+			z -= (1 - x) * (1 - x) * y;
+		} while (z != previous);
+		return z / 3;
+	}
+
+	/**
+	 * Return the relative standard error of the estimate.
+	 * @return the relative standard error, such as 0.008 for 0.8%.
+	 */
+	public double getStandardError() {
+		return 1.04 / Math.sqrt(registers.length);
+	}
+
+	/**
+	 * Write the sketch in a compact binary form.
+	 * @param out destination of the sketch.
+	 * @throws IOException if the sketch cannot be written.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeByte(precision);
+		out.write(registers);
+	}
+
+	/**
+	 * Read a sketch written by {@link #writeTo}.
+	 * @param in source of the sketch.
+	 * @return the sketch that was written.
+	 * @throws IOException if the sketch cannot be read or is malformed.
+	 */
+	public static DistinctCountSketch readFrom(DataInput in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a serialized DistinctCountSketch.");
+		}
+		int precision = in.readByte();
+		if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+			throw new IOException("Unsupported precision: " + precision);
+		}
+		DistinctCountSketch sketch = new DistinctCountSketch(precision);
+		in.readFully(sketch.registers);
+		for (byte register : sketch.registers) {
+			if (register < 0 || register > 65 - precision) {
+				throw new IOException("Invalid register: " + register);
+			}
+		}
+		return sketch;
+	}
+
+	/**
+	 * Spread the bits of a value over all 64 bits (the MurmurHash3 finalizer),
+	 * since the low bits of small integers and round numbers are all 0.
+	 */
+	static long hash(long bits) {
+		bits ^= bits >>> 33;
+		bits *= 0xff51afd7ed558ccdL;
+		bits ^= bits >>> 33;
+		bits *= 0xc4ceb9fe1a85ec53L;
+		bits ^= bits >>> 33;
+		return bits;
+	}
+}
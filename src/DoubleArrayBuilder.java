@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+/**
+ * A growable buffer of primitive double values. Used by the loaders to collect
+ * a data set of unknown size without boxing every value into a Double.
+ *
+ */
+public class DoubleArrayBuilder {
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+	private double[] values;
+	private int size;
+
+	/**
+	 * Constructor. Create an empty builder with a default capacity.
+	 */
+	public DoubleArrayBuilder() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor. Create an empty builder with the given initial capacity.
+	 * @param capacity initial number of values the builder can hold.
+	 */
+	public DoubleArrayBuilder(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("The capacity should not be negative, your capacity: " + capacity);
+		}
+		values = new double[Math.max(capacity, 1)];
+		size = 0;
+	}
+
+	/**
+	 * Append a value to the end of the builder.
+	 * @param value the value to be appended.
+	 */
+	public void add(double value) {
+		if (size == values.length) {
+			grow(size + 1);
+		}
+		values[size++] = value;
+	}
+
+	/**
+	 * Append all values in the given range of an array.
+	 * @param src    source array.
+	 * @param offset index of the first value to be copied.
+	 * @param length number of values to be copied.
+	 */
+	public void addAll(double[] src, int offset, int length) {
+		if (size + length > values.length) {
+			grow(size + length);
+		}
+		System.arraycopy(src, offset, values, size, length);
+		size += length;
+	}
+
+	/**
+	 * Return number of values in the builder.
+	 * @return number of values in the builder.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Remove all values but keep the allocated capacity.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Return a new array which contains exactly the values in the builder.
+	 * @return a trimmed copy of the values.
+	 */
+	public double[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+	/**
+	 * Copy the values into the given array.
+	 * @param dest   destination array.
+	 * @param offset index in the destination of the first value.
+	 */
+	public void copyTo(double[] dest, int offset) {
+		System.arraycopy(values, 0, dest, offset, size);
+	}
+
+	private void grow(int minCapacity) {
+		if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+			throw new OutOfMemoryError("Too many values for a single array: " + minCapacity);
+		}
+		long newCapacity = (long) values.length + (values.length >> 1) + 1;
+		if (newCapacity < minCapacity) {
+			newCapacity = minCapacity;
+		}
+		if (newCapacity > MAX_CAPACITY) {
+			newCapacity = MAX_CAPACITY;
+		}
+		values = Arrays.copyOf(values, (int) newCapacity);
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * Writes double values as ASCII text straight into a byte array. With a fixed
+ * number of decimal places the digits are produced from a long, so large
+ * files can be written without creating a String per value. FULL_PRECISION,
+ * NaN, the infinities and values too large for a long still go through
+ * Double.toString and create one String each.
+ *
+ */
+public final class DoubleFormatter {
+    /**
+     * Use Double.toString, which round-trips exactly through Double.parseDouble
+     * but creates a String per value.
+     */
+    public static final int FULL_PRECISION = -1;
+    /** Largest number of decimal places supported by the fixed-point path. */
+    public static final int MAX_DECIMALS = 15;
+    /** Upper bound on the bytes written for one value. */
+    public static final int MAX_LENGTH = 40;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_DECIMALS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private DoubleFormatter() {
+    }
+
+    /**
+     * Write a value into a byte array. With decimal places, value times
+     * 10^decimals is rounded half up, and a value rounding to zero is written
+     * without a minus sign.
+     * @param value    the value to be written.
+     * @param decimals number of decimal places, or FULL_PRECISION.
+     * @param dest     destination array, with at least MAX_LENGTH bytes free.
+     * @param pos      index of the first byte to be written.
+     * @return index just past the last byte written.
+     */
+    public static int format(double value, int decimals, byte[] dest, int pos) {
+        if (decimals < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+            return writeAscii(Double.toString(value), dest, pos);
+        }
+        double scaled = Math.abs(value) * POWERS_OF_TEN[decimals];
+        if (scaled >= 9.0e18) {
+            return writeAscii(Double.toString(value), dest, pos);
+        }
+        long units = Math.round(scaled);
+        if (value < 0 && units != 0) {
+            dest[pos++] = '-';
+        }
+        long integer = units / POWERS_OF_TEN[decimals];
+        long fraction = units % POWERS_OF_TEN[decimals];
+        pos = writeDigits(integer, 1, dest, pos);
+        if (decimals > 0) {
+            dest[pos++] = '.';
+            pos = writeDigits(fraction, decimals, dest, pos);
+        }
+        return pos;
+    }
+
+    /**
+     * Write a non-negative number in decimal, padded with leading zeros to at
+     * least width digits.
+     */
+    private static int writeDigits(long number, int width, byte[] dest, int pos) {
+        int length = 1;
+        for (long rest = number / 10; rest > 0; rest /= 10) {
+            length++;
+        }
+        length = Math.max(length, width);
+        int end = pos + length;
+        for (int i = end - 1; i >= pos; i--) {
+            dest[i] = (byte) ('0' + number % 10);
+            number /= 10;
+        }
+        return end;
+    }
+
+    private static int writeAscii(String text, byte[] dest, int pos) {
+        for (int i = 0; i < text.length(); i++) {
+            dest[pos++] = (byte) text.charAt(i);
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,273 @@
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Tracks the most frequent values of a stream in a fixed amount of memory
+ * (Space-Saving). At most capacity values are counted at a time; a value that
+ * is not counted yet replaces the value with the smallest count and takes
+ * over that count, which becomes the possible overcount of the newcomer. So
+ * every count is an upper bound, every count minus its error a lower bound,
+ * and every value occurring more than count / capacity times is sure to be
+ * tracked, however many values the stream has.
+ * <p>
+ * Counted values are found in an open addressing table of counter numbers,
+ * and the counters are kept in a binary min-heap on their counts, so a value
+ * costs O(1) when it is already counted and O(log capacity) otherwise. Each
+ * counter takes about {@value #BYTES_PER_COUNTER} bytes.
+ * <p>
+ * Values are compared as in {@link Modes}: by their bits, so 0.0 and -0.0 are
+ * different values and all NaNs are one.
+ *
+ */
+public class FrequentValues implements DoubleConsumer {
+	/** Default number of counters, about 100 KB. */
+	public static final int DEFAULT_CAPACITY = 2048;
+	/** Approximate memory taken by one counter, table included. */
+	public static final int BYTES_PER_COUNTER = 48;
+
+	private final int capacity;
+	// Per counter: the bits of the value, its count and its possible overcount.
+	private final long[] values;
+	private final long[] counts;
+	private final long[] errors;
+	// heap[i] is a counter number; position[c] is where counter c is in heap.
+	private final int[] heap;
+	private final int[] position;
+	// Open addressing table: counter number + 1 per slot, 0 for an empty slot.
+	private final int[] table;
+	private final int shift;
+	private int size;
+	private long total;
+
+	/**
+	 * Constructor. Create an empty tracker with the default capacity.
+	 */
+	public FrequentValues() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor. Create an empty tracker which counts at most capacity
+	 * values at a time.
+	 * @param capacity number of counters, at least 1.
+	 * @throws IllegalArgumentException if capacity is not positive or too large.
+	 */
+	public FrequentValues(int capacity) throws IllegalArgumentException {
+		if (capacity <= 0 || capacity > 1 << 28) {
+			throw new IllegalArgumentException("The capacity should be between 1 and " + (1 << 28)
+					+ ", your capacity: " + capacity);
+		}
+		this.capacity = capacity;
+		this.values = new long[capacity];
+		this.counts = new long[capacity];
+		this.errors = new long[capacity];
+		this.heap = new int[capacity];
+		this.position = new int[capacity];
+		// At least twice as many slots as counters so probe sequences stay short.
+		int slots = Integer.highestOneBit(capacity) << 2;
+		this.table = new int[slots];
+		this.shift = 64 - Integer.numberOfTrailingZeros(slots);
+		this.size = 0;
+		this.total = 0;
+	}
+
+	/**
+	 * Return a tracker with as many counters as fit in the given memory.
+	 * @param bytes memory budget in bytes.
+	 * @return an empty tracker.
+	 * @throws IllegalArgumentException if the budget is smaller than one counter.
+	 */
+	public static FrequentValues withMemoryBudget(long bytes) throws IllegalArgumentException {
+		return new FrequentValues((int) Math.min(bytes / BYTES_PER_COUNTER, 1 << 28));
+	}
+
+	/**
+	 * Count a value.
+	 * @param value the value to be counted.
+	 */
+	@Override
+	public void accept(double value) {
+		total++;
+		long bits = Double.doubleToLongBits(value);
+		int slot = slotOf(bits);
+		int counter = table[slot] - 1;
+		if (counter >= 0) {
+			counts[counter]++;
+			siftDown(position[counter]);
+			return;
+		}
+		if (size < capacity) {
+			counter = size++;
+			values[counter] = bits;
+			counts[counter] = 1;
+			errors[counter] = 0;
+			table[slot] = counter + 1;
+			heap[counter] = counter;
+			position[counter] = counter;
+			siftUp(counter);
+			return;
+		}
+
+		// Replace the value with the smallest count.
+		counter = heap[0];
+		remove(values[counter]);
+		errors[counter] = counts[counter];
+		counts[counter]++;
+		values[counter] = bits;
+		table[slotOf(bits)] = counter + 1;
+		siftDown(0);
+	}
+
+	/**
+	 * Count all values of an array.
+	 * @param values the values to be counted.
+	 */
+	public void acceptAll(double[] values) {
+		for (double value : values) {
+			accept(value);
+		}
+	}
+
+	/**
+	 * Forget every value counted so far.
+	 */
+	public void clear() {
+		Arrays.fill(table, 0);
+		size = 0;
+		total = 0;
+	}
+
+	/**
+	 * Return count of value seen so far.
+	 * @return count of value seen so far.
+	 */
+	public long getCount() {
+		return total;
+	}
+
+	/**
+	 * Return the number of counters.
+	 * @return the capacity of the tracker.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Return the most frequent values, most frequent first. Values with the
+	 * same estimated count are in ascending order.
+	 * @param limit maximum number of values to be returned.
+	 * @return an array which contains at most limit values.
+	 * @throws IllegalArgumentException if limit is negative.
+	 */
+	public double[] getTopValues(int limit) throws IllegalArgumentException {
+		if (limit < 0) {
+			throw new IllegalArgumentException("The limit should not be negative, your limit: " + limit);
+		}
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a])
+				: Double.compare(Double.longBitsToDouble(values[a]), Double.longBitsToDouble(values[b])));
+		double[] top = new double[Math.min(limit, size)];
+		for (int i = 0; i < top.length; i++) {
+			top[i] = Double.longBitsToDouble(values[order[i]]);
+		}
+		return top;
+	}
+
+	/**
+	 * Return an upper bound of the number of times a value was seen.
+	 * @param value the value to be looked up.
+	 * @return the estimated count, or 0 if the value is not tracked, in which
+	 *         case it was seen at most as often as the smallest count.
+	 */
+	public long getEstimate(double value) {
+		int counter = table[slotOf(Double.doubleToLongBits(value))] - 1;
+		return counter < 0 ? 0 : counts[counter];
+	}
+
+	/**
+	 * Return a lower bound of the number of times a value was seen.
+	 * @param value the value to be looked up.
+	 * @return the guaranteed count, or 0 if the value is not tracked.
+	 */
+	public long getLowerBound(double value) {
+		int counter = table[slotOf(Double.doubleToLongBits(value))] - 1;
+		return counter < 0 ? 0 : counts[counter] - errors[counter];
+	}
+
+	/**
+	 * Return the slot holding the counter of a value, or the empty slot where
+	 * it would be inserted.
+	 */
+	private int slotOf(long bits) {
+		int mask = table.length - 1;
+		int slot = (int) (DistinctCountSketch.hash(bits) >>> shift);
+		int entry;
+		while ((entry = table[slot]) != 0 && values[entry - 1] != bits) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Remove a value from the table, moving later entries of its probe
+	 * sequence back so they stay reachable.
+	 */
+	private void remove(long bits) {
+		int mask = table.length - 1;
+		int hole = slotOf(bits);
+		table[hole] = 0;
+		int slot = (hole + 1) & mask;
+		int entry;
+		while ((entry = table[slot]) != 0) {
+			int home = (int) (DistinctCountSketch.hash(values[entry - 1]) >>> shift);
+			// Move the entry into the hole unless its home lies in (hole, slot].
+			if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+				table[hole] = entry;
+				table[slot] = 0;
+				hole = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private void siftUp(int index) {
+		int counter = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (counts[heap[parent]] <= counts[counter]) {
+				break;
+			}
+			move(heap[parent], index);
+			index = parent;
+		}
+		move(counter, index);
+	}
+
+	private void siftDown(int index) {
+		int counter = heap[index];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+				child++;
+			}
+			if (counts[heap[child]] >= counts[counter]) {
+				break;
+			}
+			move(heap[child], index);
+			index = child;
+		}
+		move(counter, index);
+	}
+
+	private void move(int counter, int index) {
+		heap[index] = counter;
+		position[counter] = index;
+	}
+}
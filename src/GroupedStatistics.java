@@ -0,0 +1,403 @@
+import java.util.Arrays;
+
+/**
+ * Descriptive statistics of many groups of values at once, such as one group
+ * per host or per sensor. Values are added with the key of their group, in a
+ * single pass and in any order.
+ * <p>
+ * Groups are found in an open addressing hash table of group numbers, and
+ * the running moments, minimum and maximum of every group live in primitive
+ * arrays indexed by group number, so adding a value allocates nothing once
+ * its group exists and no object is created per group apart from the key.
+ * <p>
+ * Exact medians and percentiles need every value. They are available when
+ * requested at construction; the values are then kept with their group
+ * number, and on the first order statistic they are scattered into one
+ * array, group after group, and each group is sorted when first asked for.
+ *
+ */
+public class GroupedStatistics {
+	private static final int INITIAL_GROUPS = 16;
+	/** Golden ratio multiplier spreading hash codes over the table. */
+	private static final int SPREAD = 0x9E3779B9;
+
+	private static final MetricTimer ADD_ALL_TIMER = Metrics.timer("group.addAll");
+	private static final MetricTimer SCATTER_TIMER = Metrics.timer("group.scatter");
+
+	private final boolean orderStatistics;
+
+	// Open addressing table: group number + 1 per slot, 0 for an empty slot.
+	private int[] slots;
+	private int shift;
+
+	// Per group, indexed by group number in order of first appearance.
+	private String[] keys;
+	private int[] hashes;
+	private long[] counts;
+	private double[] means;
+	private double[] m2s;
+	private double[] mins;
+	private double[] maxs;
+	private double[] reciprocalSums;
+	private int groupCount;
+
+	// Values and their group numbers, kept only for order statistics.
+	private double[] values;
+	private int[] groupOfValue;
+	private int valueCount;
+	// Values scattered group after group; group g is [offsets[g], offsets[g + 1]).
+	private double[] grouped;
+	private int[] offsets;
+	private boolean[] sortedGroups;
+
+	/**
+	 * Constructor. Create an empty engine which keeps moments only.
+	 */
+	public GroupedStatistics() {
+		this(false);
+	}
+
+	/**
+	 * Constructor. Create an empty engine.
+	 * @param orderStatistics true to keep every value, so exact medians and
+	 *                        percentiles are available per group.
+	 */
+	public GroupedStatistics(boolean orderStatistics) {
+		this.orderStatistics = orderStatistics;
+		clear();
+	}
+
+	/**
+	 * Add a value to the group with the given key, creating the group if needed.
+	 * @param key   key of the group.
+	 * @param value the value to be added.
+	 */
+	public void add(String key, double value) {
+		int group = groupOf(key);
+		long count = ++counts[group];
+		double delta = value - means[group];
+		means[group] += delta / count;
+		m2s[group] += delta * (value - means[group]);
+		mins[group] = value < mins[group] ? value : mins[group];
+		maxs[group] = value > maxs[group] ? value : maxs[group];
+		reciprocalSums[group] += 1 / value;
+		if (orderStatistics) {
+			if (valueCount == values.length) {
+				int capacity = valueCount + (valueCount >> 1) + 1;
+				values = Arrays.copyOf(values, capacity);
+				groupOfValue = Arrays.copyOf(groupOfValue, capacity);
+			}
+			values[valueCount] = value;
+			groupOfValue[valueCount++] = group;
+			grouped = null;
+		}
+	}
+
+	/**
+	 * Add every value with the key at the same index.
+	 * @param keys   keys of the groups.
+	 * @param values the values to be added.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public void addAll(String[] keys, double[] values) throws IllegalArgumentException {
+		if (keys.length != values.length) {
+			throw new IllegalArgumentException("The number of keys should equal the number of values, your keys: "
+					+ keys.length + ", values: " + values.length);
+		}
+		long start = ADD_ALL_TIMER.start();
+		try {
+			for (int i = 0; i < keys.length; i++) {
+				add(keys[i], values[i]);
+			}
+		} finally {
+			ADD_ALL_TIMER.stop(start);
+		}
+	}
+
+	/**
+	 * Remove every group.
+	 */
+	public void clear() {
+		slots = new int[INITIAL_GROUPS * 2];
+		shift = 32 - Integer.numberOfTrailingZeros(slots.length);
+		keys = new String[INITIAL_GROUPS];
+		hashes = new int[INITIAL_GROUPS];
+		counts = new long[INITIAL_GROUPS];
+		means = new double[INITIAL_GROUPS];
+		m2s = new double[INITIAL_GROUPS];
+		mins = new double[INITIAL_GROUPS];
+		maxs = new double[INITIAL_GROUPS];
+		reciprocalSums = new double[INITIAL_GROUPS];
+		groupCount = 0;
+		values = new double[orderStatistics ? INITIAL_GROUPS : 0];
+		groupOfValue = new int[values.length];
+		valueCount = 0;
+		grouped = null;
+	}
+
+	/**
+	 * Return number of groups.
+	 * @return number of groups.
+	 */
+	public int getGroupCount() {
+		return groupCount;
+	}
+
+	/**
+	 * Return the keys of the groups.
+	 * @return a new array which contains the keys in order of first appearance.
+	 */
+	public String[] getKeys() {
+		return Arrays.copyOf(keys, groupCount);
+	}
+
+	/**
+	 * Return true if the engine keeps every value for order statistics.
+	 * @return true if medians and percentiles are available.
+	 */
+	public boolean hasOrderStatistics() {
+		return orderStatistics;
+	}
+
+	/**
+	 * Return count of value in a group.
+	 * @param key key of the group.
+	 * @return count of value in the group, or 0 if there is no such group.
+	 */
+	public long getCount(String key) {
+		int group = find(key);
+		return group < 0 ? 0 : counts[group];
+	}
+
+	/**
+	 * Return the smallest number of a group.
+	 * @param key key of the group.
+	 * @return the smallest number of the group.
+	 * @throws IllegalArgumentException if there is no such group.
+	 */
+	public double getMin(String key) throws IllegalArgumentException {
+		return mins[existing(key)];
+	}
+
+	/**
+	 * Return the largest number of a group.
+	 * @param key key of the group.
+	 * @return the largest number of the group.
+	 * @throws IllegalArgumentException if there is no such group.
+	 */
+	public double getMax(String key) throws IllegalArgumentException {
+		return maxs[existing(key)];
+	}
+
+	/**
+	 * Return arithmetic mean of a group.
+	 * @param key key of the group.
+	 * @return arithmetic mean of the group.
+	 * @throws IllegalArgumentException if there is no such group.
+	 */
+	public double getMean(String key) throws IllegalArgumentException {
+		return means[existing(key)];
+	}
+
+	/**
+	 * Return the harmonic mean of a group.
+	 * @param key key of the group.
+	 * @return harmonic mean of the group.
+	 * @throws IllegalArgumentException if there is no such group.
+	 */
+	public double getHarmonicMean(String key) throws IllegalArgumentException {
+		int group = existing(key);
+		return counts[group] / reciprocalSums[group];
+	}
+
+	/**
+	 * Return the sample variance of a group.
+	 * @param key key of the group.
+	 * @return sample variance of the group.
+	 * @throws IllegalArgumentException if there is no such group.
+	 */
+	public double getVariance(String key) throws IllegalArgumentException {
+		int group = existing(key);
+		return m2s[group] / (counts[group] - 1);
+	}
+
+	/**
+	 * Return the population variance of a group.
+	 * @param key key of the group.
+	 * @return population variance of the group.
+	 * @throws IllegalArgumentException if there is no such group.
+	 */
+	public double getPVariance(String key) throws IllegalArgumentException {
+		int group = existing(key);
+		return m2s[group] / counts[group];
+	}
+
+	/**
+	 * Return the sample standard deviation of a group.
+	 * @param key key of the group.
+	 * @return sample standard deviation of the group.
+	 * @throws IllegalArgumentException if there is no such group.
+	 */
+	public double getSD(String key) throws IllegalArgumentException {
+		return Statistics.sqrt(getVariance(key));
+	}
+
+	/**
+	 * Return the population standard deviation of a group.
+	 * @param key key of the group.
+	 * @return population standard deviation of the group.
+	 * @throws IllegalArgumentException if there is no such group.
+	 */
+	public double getPSD(String key) throws IllegalArgumentException {
+		return Statistics.sqrt(getPVariance(key));
+	}
+
+	/**
+	 * Return the exact median of a group.
+	 * @param key key of the group.
+	 * @return the median of the group.
+	 * @throws IllegalStateException if order statistics were not requested.
+	 * @throws IllegalArgumentException if there is no such group.
+	 */
+	public double getMedian(String key) throws IllegalStateException, IllegalArgumentException {
+		return getPercentile(key, 50);
+	}
+
+	/**
+	 * Return the exact p-th percentile of a group, interpolating linearly
+	 * between the closest ranks as {@link Statistics#getPercentile} does.
+	 * @param key key of the group.
+	 * @param p   percentile between 0 and 100.
+	 * @return the value below which p percent of the group falls.
+	 * @throws IllegalStateException if order statistics were not requested.
+	 * @throws IllegalArgumentException if there is no such group or p is not
+	 *         between 0 and 100.
+	 */
+	public double getPercentile(String key, double p) throws IllegalStateException, IllegalArgumentException {
+		if (!orderStatistics) {
+			throw new IllegalStateException("This engine does not keep the values of the groups.");
+		}
+		if (!(p >= 0 && p <= 100)) {
+			throw new IllegalArgumentException("The percentile should be between 0 and 100, your percentile: " + p);
+		}
+		int group = existing(key);
+		double[] sorted = sortedGroup(group);
+		return Selection.percentile(sorted, offsets[group], offsets[group + 1], p);
+	}
+
+	/**
+	 * Return the scattered values with the given group sorted, scattering the
+	 * values first if a value was added since the last time.
+	 */
+	private double[] sortedGroup(int group) {
+		if (grouped == null) {
+			long start = SCATTER_TIMER.start();
+			try {
+				offsets = new int[groupCount + 1];
+				for (int i = 0; i < groupCount; i++) {
+					offsets[i + 1] = offsets[i] + (int) counts[i];
+				}
+				int[] next = Arrays.copyOf(offsets, groupCount);
+				double[] scattered = new double[valueCount];
+				for (int i = 0; i < valueCount; i++) {
+					scattered[next[groupOfValue[i]]++] = values[i];
+				}
+				grouped = scattered;
+				sortedGroups = new boolean[groupCount];
+			} finally {
+				SCATTER_TIMER.stop(start);
+			}
+		}
+		if (!sortedGroups[group]) {
+			Arrays.sort(grouped, offsets[group], offsets[group + 1]);
+			sortedGroups[group] = true;
+		}
+		return grouped;
+	}
+
+	/**
+	 * Return the group number of a key, creating the group if needed.
+	 */
+	private int groupOf(String key) {
+		int hash = key.hashCode();
+		int slot = slotOf(key, hash);
+		if (slots[slot] != 0) {
+			return slots[slot] - 1;
+		}
+
+		int group = groupCount++;
+		if (group == keys.length) {
+			growGroups();
+		}
+		keys[group] = key;
+		hashes[group] = hash;
+		mins[group] = Double.POSITIVE_INFINITY;
+		maxs[group] = Double.NEGATIVE_INFINITY;
+		slots[slot] = group + 1;
+		// Keep the table at most half full so probe sequences stay short.
+		if (groupCount * 2 > slots.length) {
+			rehash();
+		}
+		return group;
+	}
+
+	/**
+	 * Return the group number of a key, or -1 if there is no such group.
+	 */
+	private int find(String key) {
+		return slots[slotOf(key, key.hashCode())] - 1;
+	}
+
+	/**
+	 * Return the slot holding the group of a key, or the empty slot where it
+	 * would be inserted.
+	 */
+	private int slotOf(String key, int hash) {
+		int mask = slots.length - 1;
+		int slot = (hash * SPREAD) >>> shift;
+		int entry;
+		while ((entry = slots[slot]) != 0) {
+			if (hashes[entry - 1] == hash && keys[entry - 1].equals(key)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private int existing(String key) throws IllegalArgumentException {
+		int group = find(key);
+		if (group < 0) {
+			throw new IllegalArgumentException("The key should be a group of the data set, your key: " + key);
+		}
+		return group;
+	}
+
+	private void growGroups() {
+		int capacity = keys.length * 2;
+		keys = Arrays.copyOf(keys, capacity);
+		hashes = Arrays.copyOf(hashes, capacity);
+		counts = Arrays.copyOf(counts, capacity);
+		means = Arrays.copyOf(means, capacity);
+		m2s = Arrays.copyOf(m2s, capacity);
+		mins = Arrays.copyOf(mins, capacity);
+		maxs = Arrays.copyOf(maxs, capacity);
+		reciprocalSums = Arrays.copyOf(reciprocalSums, capacity);
+	}
+
+	/**
+	 * Double the table and insert every group again from its stored hash.
+	 */
+	private void rehash() {
+		slots = new int[slots.length * 2];
+		shift--;
+		int mask = slots.length - 1;
+		for (int group = 0; group < groupCount; group++) {
+			int slot = (hashes[group] * SPREAD) >>> shift;
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = group + 1;
+		}
+	}
+}
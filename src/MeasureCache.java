@@ -0,0 +1,102 @@
+import java.util.Arrays;
+
+/**
+ * Results already computed for one data set of a {@link Statistics} model:
+ * the summary holding the moments, the quantile sketch, the median, the
+ * modes and the last few percentiles asked for. The model keeps one cache
+ * per data set and drops it in a single assignment whenever the data set
+ * changes, so no result of an old data set can be returned for a new one.
+ *
+ */
+final class MeasureCache {
+	/** Number of distinct percentiles remembered. */
+	private static final int PERCENTILES = 8;
+
+	Summary summary;
+	QuantileSketch sketch;
+
+	boolean hasMedian;
+	double median;
+
+	boolean hasModeCount;
+	int modeCount;
+
+	private double[] modes;
+	private int modesLimit;
+
+	private final double[] percentileKeys = new double[PERCENTILES];
+	private final double[] percentileValues = new double[PERCENTILES];
+	private int percentileCount;
+	private int nextPercentile;
+
+	/**
+	 * Return at most limit modes if they are known.
+	 * @param limit maximum number of modes.
+	 * @return a new array holding the modes, or null if not known.
+	 */
+	double[] getModes(int limit) {
+		if (modes == null) {
+			return null;
+		}
+		if (limit <= modes.length) {
+			return Arrays.copyOf(modes, limit);
+		}
+		// Fewer modes than asked for before means every mode is known.
+		return modes.length < modesLimit ? modes.clone() : null;
+	}
+
+	/**
+	 * Remember the modes found with the given limit.
+	 * @param found the modes found.
+	 * @param limit the limit they were found with.
+	 */
+	void putModes(double[] found, int limit) {
+		if (modes == null || found.length > modes.length || limit > modesLimit) {
+			modes = found.clone();
+			modesLimit = limit;
+		}
+	}
+
+	/**
+	 * Return the position of a remembered percentile.
+	 * @param p percentile between 0 and 100.
+	 * @return an index for getPercentile, or -1 if not remembered.
+	 */
+	int findPercentile(double p) {
+		for (int i = 0; i < percentileCount; i++) {
+			if (Double.compare(percentileKeys[i], p) == 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	double getPercentile(int index) {
+		return percentileValues[index];
+	}
+
+	/**
+	 * Remember a percentile, replacing the oldest one when full.
+	 * @param p     percentile between 0 and 100.
+	 * @param value value of the percentile.
+	 */
+	void putPercentile(double p, double value) {
+		percentileKeys[nextPercentile] = p;
+		percentileValues[nextPercentile] = value;
+		nextPercentile = (nextPercentile + 1) % PERCENTILES;
+		if (percentileCount < PERCENTILES) {
+			percentileCount++;
+		}
+	}
+
+	/**
+	 * Forget the median and percentiles, which depend on whether the quantile
+	 * sketch is used.
+	 */
+	void clearQuantiles() {
+		sketch = null;
+		hasMedian = false;
+		percentileCount = 0;
+		nextPercentile = 0;
+	}
+}
@@ -0,0 +1,44 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter which many threads can add to without contention. Adding does
+ * nothing while metrics are disabled.
+ *
+ */
+public class MetricCounter implements MetricCounterMXBean {
+	private final String name;
+	private final LongAdder value;
+
+	MetricCounter(String name) {
+		this.name = name;
+		this.value = new LongAdder();
+	}
+
+	/**
+	 * Add to the counter if metrics are enabled.
+	 * @param amount amount to be added.
+	 */
+	public void add(long amount) {
+		if (Metrics.isEnabled()) {
+			value.add(amount);
+		}
+	}
+
+	/**
+	 * Return the name of the counter.
+	 * @return the name of the counter.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getValue() {
+		return value.sum();
+	}
+
+	@Override
+	public void reset() {
+		value.reset();
+	}
+}
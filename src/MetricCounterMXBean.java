@@ -0,0 +1,16 @@
+/**
+ * JMX view of a {@link MetricCounter}.
+ *
+ */
+public interface MetricCounterMXBean {
+	/**
+	 * Return the current value of the counter.
+	 * @return the value of the counter.
+	 */
+	long getValue();
+
+	/**
+	 * Set the counter back to 0.
+	 */
+	void reset();
+}
@@ -0,0 +1,154 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times calls to one operation. Call times go into a histogram with one
+ * bucket per power of two nanoseconds, so recording is a few atomic adds and
+ * percentiles are known within a factor of two. Bytes allocated by the
+ * calling thread between start and stop are added up when the JVM can
+ * measure them.
+ * <pre>
+ * long start = TIMER.start();
+ * try {
+ *     ...
+ * } finally {
+ *     TIMER.stop(start);
+ * }
+ * </pre>
+ * While metrics are disabled, start and stop only read a volatile flag. A
+ * timer must not be started again on a thread before it is stopped there.
+ *
+ */
+public class MetricTimer implements MetricTimerMXBean {
+	/** Returned by start() while metrics are disabled. */
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+	private static final int BUCKETS = 64;
+
+	private final String name;
+	private final AtomicLongArray buckets;
+	private final LongAdder count;
+	private final LongAdder totalNanos;
+	private final AtomicLong maxNanos;
+	private final LongAdder allocatedBytes;
+	private final ThreadLocal<long[]> allocationStart;
+
+	MetricTimer(String name) {
+		this.name = name;
+		this.buckets = new AtomicLongArray(BUCKETS);
+		this.count = new LongAdder();
+		this.totalNanos = new LongAdder();
+		this.maxNanos = new AtomicLong();
+		this.allocatedBytes = new LongAdder();
+		this.allocationStart = ThreadLocal.withInitial(() -> new long[1]);
+	}
+
+	/**
+	 * Start timing a call.
+	 * @return the start time to be passed to stop().
+	 */
+	public long start() {
+		if (!Metrics.isEnabled()) {
+			return NOT_STARTED;
+		}
+		allocationStart.get()[0] = Metrics.allocatedBytes();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Stop timing a call and record it.
+	 * @param start the value returned by start().
+	 */
+	public void stop(long start) {
+		if (start == NOT_STARTED) {
+			return;
+		}
+		long elapsed = Math.max(System.nanoTime() - start, 1);
+		count.increment();
+		totalNanos.add(elapsed);
+		buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(elapsed));
+		long max = maxNanos.get();
+		while (elapsed > max && !maxNanos.compareAndSet(max, elapsed)) {
+			max = maxNanos.get();
+		}
+		long before = allocationStart.get()[0];
+		if (before >= 0) {
+			allocatedBytes.add(Metrics.allocatedBytes() - before);
+		}
+	}
+
+	/**
+	 * Return the name of the timer.
+	 * @return the name of the timer.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getCount() {
+		return count.sum();
+	}
+
+	@Override
+	public double getTotalMillis() {
+		return totalNanos.sum() / 1e6;
+	}
+
+	@Override
+	public double getMeanMicros() {
+		long calls = count.sum();
+		return calls == 0 ? 0 : totalNanos.sum() / 1e3 / calls;
+	}
+
+	@Override
+	public double getMaxMicros() {
+		return maxNanos.get() / 1e3;
+	}
+
+	@Override
+	public double getP50Micros() {
+		return percentileNanos(0.5) / 1e3;
+	}
+
+	@Override
+	public double getP99Micros() {
+		return percentileNanos(0.99) / 1e3;
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return Metrics.allocatedBytes() < 0 ? -1 : allocatedBytes.sum();
+	}
+
+	@Override
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		totalNanos.reset();
+		maxNanos.set(0);
+		allocatedBytes.reset();
+	}
+
+	/**
+	 * Return the middle of the histogram bucket holding the given quantile of
+	 * the call times, capped at the longest call.
+	 */
+	private double percentileNanos(double q) {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += buckets.get(i);
+		}
+		long rank = (long) Math.ceil(q * total);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank && seen > 0) {
+				return Math.min(1.5 * Math.scalb(1.0, i), maxNanos.get());
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,55 @@
+/**
+ * JMX view of a {@link MetricTimer}.
+ *
+ */
+public interface MetricTimerMXBean {
+	/**
+	 * Return number of timed calls.
+	 * @return number of timed calls.
+	 */
+	long getCount();
+
+	/**
+	 * Return total time of the calls in milliseconds.
+	 * @return total time in milliseconds.
+	 */
+	double getTotalMillis();
+
+	/**
+	 * Return mean time of a call in microseconds.
+	 * @return mean time in microseconds.
+	 */
+	double getMeanMicros();
+
+	/**
+	 * Return the longest call in microseconds.
+	 * @return longest call in microseconds.
+	 */
+	double getMaxMicros();
+
+	/**
+	 * Return the median call time in microseconds, estimated from the
+	 * histogram.
+	 * @return estimated median in microseconds.
+	 */
+	double getP50Micros();
+
+	/**
+	 * Return the 99th percentile of call time in microseconds, estimated from
+	 * the histogram.
+	 * @return estimated 99th percentile in microseconds.
+	 */
+	double getP99Micros();
+
+	/**
+	 * Return bytes allocated on the calling threads during the calls, or -1
+	 * if the JVM cannot measure it.
+	 * @return allocated bytes.
+	 */
+	long getAllocatedBytes();
+
+	/**
+	 * Forget every recorded call.
+	 */
+	void reset();
+}
@@ -0,0 +1,256 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the timers and counters of the calculator. Metrics are off
+ * unless the system property statistics.metrics is true or
+ * {@link #setEnabled} is called; while off, instrumented code only reads a
+ * volatile flag. Once enabled, every timer and counter is registered as an
+ * MXBean under the domain "Statistics", and a snapshot can be printed as
+ * text or JSON, once or periodically.
+ * <p>
+ * Periodic dumps can be started from system properties, see
+ * {@link #startDumpFromSystemProperties()}:
+ * <pre>
+ * -Dstatistics.metrics=true
+ * -Dstatistics.metrics.dump=10          dump every 10 seconds
+ * -Dstatistics.metrics.format=json      json or text (default)
+ * -Dstatistics.metrics.file=metrics.json  overwrite a file instead of stderr
+ * </pre>
+ *
+ */
+public final class Metrics {
+	private static final String DOMAIN = "Statistics";
+
+	private static final Map<String, MetricTimer> TIMERS = new ConcurrentSkipListMap<String, MetricTimer>();
+	private static final Map<String, MetricCounter> COUNTERS = new ConcurrentSkipListMap<String, MetricCounter>();
+
+	private static volatile boolean enabled = Boolean.getBoolean("statistics.metrics");
+	private static ScheduledExecutorService dumper;
+
+	private Metrics() {
+	}
+
+	/**
+	 * Return the timer with the given name, creating it if needed.
+	 * @param name name of the timer, such as "measure.median".
+	 * @return the timer.
+	 */
+	public static MetricTimer timer(String name) {
+		MetricTimer timer = TIMERS.computeIfAbsent(name, MetricTimer::new);
+		if (enabled) {
+			register("Timer", name, timer);
+		}
+		return timer;
+	}
+
+	/**
+	 * Return the counter with the given name, creating it if needed.
+	 * @param name name of the counter, such as "values.parsed".
+	 * @return the counter.
+	 */
+	public static MetricCounter counter(String name) {
+		MetricCounter counter = COUNTERS.computeIfAbsent(name, MetricCounter::new);
+		if (enabled) {
+			register("Counter", name, counter);
+		}
+		return counter;
+	}
+
+	/**
+	 * Return true if metrics are recorded.
+	 * @return true if metrics are enabled.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turn recording on or off. Turning it on registers the MXBeans.
+	 * @param value true to record metrics.
+	 */
+	public static void setEnabled(boolean value) {
+		enabled = value;
+		if (value) {
+			for (MetricTimer timer : TIMERS.values()) {
+				register("Timer", timer.getName(), timer);
+			}
+			for (MetricCounter counter : COUNTERS.values()) {
+				register("Counter", counter.getName(), counter);
+			}
+		}
+	}
+
+	/**
+	 * Forget every recorded value.
+	 */
+	public static void reset() {
+		for (MetricTimer timer : TIMERS.values()) {
+			timer.reset();
+		}
+		for (MetricCounter counter : COUNTERS.values()) {
+			counter.reset();
+		}
+	}
+
+	/**
+	 * Return bytes allocated so far by the current thread.
+	 * @return allocated bytes, or -1 if the JVM cannot measure them.
+	 */
+	static long allocatedBytes() {
+		com.sun.management.ThreadMXBean threads = Allocation.THREADS;
+		return threads == null ? -1 : threads.getCurrentThreadAllocatedBytes();
+	}
+
+	/**
+	 * Return a snapshot of every metric, one per line.
+	 * @return the metrics as text.
+	 */
+	public static String toText() {
+		StringBuilder text = new StringBuilder();
+		for (MetricCounter counter : COUNTERS.values()) {
+			text.append(counter.getName()).append(' ').append(counter.getValue()).append('\n');
+		}
+		for (MetricTimer timer : TIMERS.values()) {
+			if (timer.getCount() == 0) {
+				continue;
+			}
+			text.append(String.format(Locale.ROOT,
+					"%s count=%d total_ms=%.3f mean_us=%.3f p50_us=%.3f p99_us=%.3f max_us=%.3f alloc_bytes=%d%n",
+					timer.getName(), timer.getCount(), timer.getTotalMillis(), timer.getMeanMicros(),
+					timer.getP50Micros(), timer.getP99Micros(), timer.getMaxMicros(), timer.getAllocatedBytes()));
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Return a snapshot of every metric as one JSON object.
+	 * @return the metrics as JSON.
+	 */
+	public static String toJson() {
+		StringBuilder json = new StringBuilder("{\"counters\":{");
+		boolean first = true;
+		for (MetricCounter counter : COUNTERS.values()) {
+			json.append(first ? "" : ",").append('"').append(counter.getName()).append("\":").append(counter.getValue());
+			first = false;
+		}
+		json.append("},\"timers\":{");
+		first = true;
+		for (MetricTimer timer : TIMERS.values()) {
+			if (timer.getCount() == 0) {
+				continue;
+			}
+			json.append(first ? "" : ",").append('"').append(timer.getName()).append("\":");
+			json.append(String.format(Locale.ROOT,
+					"{\"count\":%d,\"total_ms\":%.3f,\"mean_us\":%.3f,\"p50_us\":%.3f,\"p99_us\":%.3f,"
+							+ "\"max_us\":%.3f,\"alloc_bytes\":%d}",
+					timer.getCount(), timer.getTotalMillis(), timer.getMeanMicros(), timer.getP50Micros(),
+					timer.getP99Micros(), timer.getMaxMicros(), timer.getAllocatedBytes()));
+			first = false;
+		}
+		return json.append("}}").toString();
+	}
+
+	/**
+	 * Print a snapshot periodically on a daemon thread, replacing any dump
+	 * started before.
+	 * @param periodSeconds seconds between two snapshots.
+	 * @param json          true for JSON, false for text.
+	 * @param fileName      file to be overwritten with each snapshot, or null
+	 *                      to print to standard error.
+	 * @throws IllegalArgumentException if the period is not positive.
+	 */
+	public static synchronized void startDump(long periodSeconds, boolean json, String fileName)
+			throws IllegalArgumentException {
+		if (periodSeconds <= 0) {
+			throw new IllegalArgumentException("The dump period should be greater than 0, your period: "
+					+ periodSeconds);
+		}
+		stopDump();
+		dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "metrics-dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		dumper.scheduleAtFixedRate(() -> dump(json, fileName), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stop the periodic dump if one is running.
+	 */
+	public static synchronized void stopDump() {
+		if (dumper != null) {
+			dumper.shutdownNow();
+			dumper = null;
+		}
+	}
+
+	/**
+	 * Start a periodic dump if metrics are enabled and the system property
+	 * statistics.metrics.dump gives a period in seconds.
+	 */
+	public static void startDumpFromSystemProperties() {
+		String period = System.getProperty("statistics.metrics.dump");
+		if (!enabled || period == null) {
+			return;
+		}
+		startDump(Long.parseLong(period), "json".equals(System.getProperty("statistics.metrics.format")),
+				System.getProperty("statistics.metrics.file"));
+	}
+
+	private static void dump(boolean json, String fileName) {
+		String snapshot = json ? toJson() + "\n" : toText() + "\n";
+		if (fileName == null) {
+			System.err.print(snapshot);
+			return;
+		}
+		try (PrintStream out = new PrintStream(new FileOutputStream(fileName), false, StandardCharsets.UTF_8)) {
+			out.print(snapshot);
+		} catch (IOException e) {
+			System.err.println("An error occured when writing metrics to " + fileName);
+		}
+	}
+
+	private static void register(String type, String name, Object bean) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+			if (!server.isRegistered(objectName)) {
+				server.registerMBean(bean, objectName);
+			}
+		} catch (JMException e) {
+			// Another thread registered it first; the bean is available either way.
+		}
+	}
+
+	/**
+	 * Holds the thread MXBean, looked up on first use so the management
+	 * classes are not loaded while metrics are off.
+	 */
+	private static final class Allocation {
+		static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+	}
+
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+			if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+				return threads;
+			}
+		}
+		return null;
+	}
+}
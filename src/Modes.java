@@ -0,0 +1,85 @@
+/**
+ * Run-length mode finder over a sorted array. Equal values sit next to each
+ * other in a sorted array, so the most frequent value(s) can be found by
+ * measuring the length of each run without any per-value bookkeeping.
+ *
+ */
+public final class Modes {
+
+	private Modes() {
+	}
+
+	/**
+	 * Return the length of the longest run of equal values.
+	 * @param sorted values sorted in ascending order.
+	 * @return the number of occurrences of the most frequent value, or 0 if
+	 *         the array is empty.
+	 */
+	public static int maxFrequency(double[] sorted) {
+		int maxRun = 0;
+		int i = 0;
+		while (i < sorted.length) {
+			int end = runEnd(sorted, i);
+			maxRun = Math.max(maxRun, end - i);
+			i = end;
+		}
+		return maxRun;
+	}
+
+	/**
+	 * Return how many distinct values occur exactly the given number of times.
+	 * @param sorted    values sorted in ascending order.
+	 * @param frequency number of occurrences, usually {@link #maxFrequency}.
+	 * @return number of distinct values with the given frequency.
+	 */
+	public static int count(double[] sorted, int frequency) {
+		int count = 0;
+		int i = 0;
+		while (i < sorted.length) {
+			int end = runEnd(sorted, i);
+			if (end - i == frequency) {
+				count++;
+			}
+			i = end;
+		}
+		return count;
+	}
+
+	/**
+	 * Return the most frequent value(s) in ascending order.
+	 * @param sorted values sorted in ascending order.
+	 * @param limit  maximum number of modes to be returned.
+	 * @return an array which contains at most limit modes.
+	 */
+	public static double[] find(double[] sorted, int limit) {
+		if (limit < 0) {
+			throw new IllegalArgumentException("The limit should not be negative, your limit: " + limit);
+		}
+		int frequency = maxFrequency(sorted);
+		int found = 0;
+		double[] modes = new double[Math.min(limit, count(sorted, frequency))];
+		int i = 0;
+		while (i < sorted.length && found < modes.length) {
+			int end = runEnd(sorted, i);
+			if (end - i == frequency) {
+				modes[found++] = sorted[i];
+			}
+			i = end;
+		}
+		return modes;
+	}
+
+	/**
+	 * Return the index just past the run of values equal to sorted[start].
+	 * Values are compared by bits, so NaN equals NaN and 0.0 differs from -0.0,
+	 * which is the same as Double.equals.
+	 */
+	private static int runEnd(double[] sorted, int start) {
+		long bits = Double.doubleToLongBits(sorted[start]);
+		int end = start + 1;
+		while (end < sorted.length && Double.doubleToLongBits(sorted[end]) == bits) {
+			end++;
+		}
+		return end;
+	}
+}
@@ -0,0 +1,365 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Reads files which contain one number per line. The file is read through a
+ * FileChannel into a large direct buffer and each line is parsed straight from
+ * the bytes, so no String is created per line. Large files can be split at
+ * newline boundaries and parsed by several threads at once.
+ * <p>
+ * Numbers with at most 15 significant digits and a small decimal exponent
+ * are converted exactly with a fast path; anything else (more digits, NaN,
+ * Infinity, hexadecimal notation) falls back to Double.parseDouble, so every
+ * value is identical to what Double.parseDouble would return.
+ *
+ */
+public final class NumberFileReader {
+	/** Size of the read buffer of each thread. */
+	private static final int BUFFER_SIZE = 1 << 20;
+	/** Files smaller than this are always read by one thread. */
+	private static final long PARALLEL_THRESHOLD = 8L << 20;
+	/** Exact powers of ten representable as a double. */
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	private static final int MAX_FAST_DIGITS = 15;
+
+	private static final MetricTimer PARSE_TIMER = Metrics.timer("file.parse");
+	private static final MetricCounter VALUES_PARSED = Metrics.counter("values.parsed");
+	private static final MetricCounter BYTES_READ = Metrics.counter("bytes.read");
+
+	private NumberFileReader() {
+	}
+
+	/**
+	 * Read every number of a file into an array on a single thread.
+	 * @param fileName path of the file to be read.
+	 * @return an array which contains the numbers in file order.
+	 * @throws IOException if the file cannot be read.
+	 * @throws NumberFormatException if a line is not a number.
+	 */
+	public static double[] read(String fileName) throws IOException, NumberFormatException {
+		return read(fileName, 1);
+	}
+
+	/**
+	 * Read every number of a file into an array. Files large enough are split
+	 * into ranges at newline boundaries, and the ranges are parsed in parallel.
+	 * @param fileName path of the file to be read.
+	 * @param threads  maximum number of threads to be used.
+	 * @return an array which contains the numbers in file order.
+	 * @throws IOException if the file cannot be read.
+	 * @throws NumberFormatException if a line is not a number.
+	 */
+	public static double[] read(String fileName, int threads) throws IOException, NumberFormatException {
+		return read(fileName, threads, PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Read every number of a file into an array, giving each thread at least
+	 * threshold bytes of the file.
+	 */
+	static double[] read(String fileName, int threads, long threshold) throws IOException, NumberFormatException {
+		long start = PARSE_TIMER.start();
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			long size = channel.size();
+			int parts = (int) Math.max(1, Math.min(threads, size / threshold));
+			double[] dataset;
+			if (parts == 1) {
+				DoubleArrayBuilder values = new DoubleArrayBuilder((int) Math.min(size / 8 + 16, 1 << 24));
+				parseRange(channel, 0, size, values::add);
+				dataset = values.toArray();
+			}
+			else {
+				dataset = readParallel(channel, size, parts);
+			}
+			BYTES_READ.add(size);
+			VALUES_PARSED.add(dataset.length);
+			return dataset;
+		} finally {
+			PARSE_TIMER.stop(start);
+		}
+	}
+
+	/**
+	 * Pass every number of a file to the given consumer in file order.
+	 * @param fileName path of the file to be read.
+	 * @param consumer receiver of the parsed values.
+	 * @throws IOException if the file cannot be read.
+	 * @throws NumberFormatException if a line is not a number.
+	 */
+	public static void forEach(String fileName, DoubleConsumer consumer) throws IOException, NumberFormatException {
+		long start = PARSE_TIMER.start();
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			if (Metrics.isEnabled()) {
+				long[] parsed = new long[1];
+				parseRange(channel, 0, channel.size(), value -> {
+					parsed[0]++;
+					consumer.accept(value);
+				});
+				VALUES_PARSED.add(parsed[0]);
+			}
+			else {
+				parseRange(channel, 0, channel.size(), consumer);
+			}
+			BYTES_READ.add(channel.size());
+		} finally {
+			PARSE_TIMER.stop(start);
+		}
+	}
+
+	private static double[] readParallel(FileChannel channel, long size, int parts) throws IOException {
+		ExecutorService pool = Executors.newFixedThreadPool(parts);
+		try {
+			List<Future<DoubleArrayBuilder>> futures = new ArrayList<Future<DoubleArrayBuilder>>();
+			for (int i = 0; i < parts; i++) {
+				long from = size * i / parts;
+				long to = size * (i + 1) / parts;
+				futures.add(pool.submit(() -> {
+					DoubleArrayBuilder values = new DoubleArrayBuilder((int) Math.min((to - from) / 8 + 16, 1 << 24));
+					parseRange(channel, from, to, values::add);
+					return values;
+				}));
+			}
+
+			List<DoubleArrayBuilder> results = new ArrayList<DoubleArrayBuilder>();
+			long total = 0;
+			for (Future<DoubleArrayBuilder> future : futures) {
+				DoubleArrayBuilder values = future.get();
+				results.add(values);
+				total += values.size();
+			}
+			if (total > Integer.MAX_VALUE - 8) {
+				throw new IOException("Too many values for a single array: " + total);
+			}
+			double[] dataset = new double[(int) total];
+			int offset = 0;
+			for (DoubleArrayBuilder values : results) {
+				values.copyTo(dataset, offset);
+				offset += values.size();
+			}
+			return dataset;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading the file.", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Parse every line which starts in [from, to) of the channel. A range that
+	 * does not start at 0 skips the partial line it starts in, because that
+	 * line belongs to the previous range. The last line may extend past to.
+	 */
+	private static void parseRange(FileChannel channel, long from, long to, DoubleConsumer consumer) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		long position = from;
+		boolean skipFirst = false;
+		if (from > 0) {
+			ByteBuffer previous = ByteBuffer.allocate(1);
+			channel.read(previous, from - 1);
+			skipFirst = previous.get(0) != '\n';
+		}
+
+		// bufferStart is the file position of buffer index 0.
+		long bufferStart = position;
+		boolean eof = false;
+		while (true) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				eof = true;
+			}
+			else {
+				position += read;
+			}
+			int limit = buffer.position();
+			int start = 0;
+			for (int i = 0; i < limit; i++) {
+				if (buffer.get(i) == '\n') {
+					if (skipFirst) {
+						skipFirst = false;
+					}
+					else if (bufferStart + start < to) {
+						parseLine(buffer, bufferStart, start, i, consumer);
+					}
+					else {
+						return;
+					}
+					start = i + 1;
+				}
+			}
+			if (eof) {
+				if (!skipFirst && start < limit && bufferStart + start < to) {
+					parseLine(buffer, bufferStart, start, limit, consumer);
+				}
+				return;
+			}
+			if (bufferStart + start >= to && !skipFirst) {
+				return;
+			}
+			if (start == 0 && limit == buffer.capacity()) {
+				if (skipFirst) {
+					// Still inside the previous range's line; drop what was read.
+					bufferStart += limit;
+					buffer.clear();
+					continue;
+				}
+				throw new IOException("Line at byte " + bufferStart + " is longer than " + BUFFER_SIZE + " bytes.");
+			}
+
+			// Move the partial line to the front of the buffer.
+			buffer.flip();
+			buffer.position(start);
+			buffer.compact();
+			bufferStart += start;
+		}
+	}
+
+	/**
+	 * Parse bytes [start, end) of the buffer as one number and pass it to the
+	 * consumer. Blank lines are skipped. A line which is not a number is
+	 * reported by its file position, without its text.
+	 */
+	private static void parseLine(ByteBuffer buffer, long bufferStart, int start, int end, DoubleConsumer consumer) {
+		long position = bufferStart + start;
+		while (start < end && isSpace(buffer.get(start))) {
+			start++;
+		}
+		while (end > start && isSpace(buffer.get(end - 1))) {
+			end--;
+		}
+		if (start == end) {
+			return;
+		}
+		double value;
+		try {
+			value = parseDouble(buffer, start, end);
+		} catch (NumberFormatException e) {
+			throw new NumberFormatException("Line at byte " + position + " is not a number.");
+		}
+		consumer.accept(value);
+	}
+
+	/**
+	 * Parse bytes [start, end) of the buffer as a decimal number.
+	 * @param buffer buffer holding ASCII text.
+	 * @param start  index of the first byte.
+	 * @param end    index past the last byte.
+	 * @return the parsed value.
+	 * @throws NumberFormatException if the bytes are not a number.
+	 */
+	static double parseDouble(ByteBuffer buffer, int start, int end) throws NumberFormatException {
+		int i = start;
+		boolean negative = false;
+		byte b = buffer.get(i);
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean seenDigit = false;
+		while (i < end && (b = buffer.get(i)) >= '0' && b <= '9') {
+			seenDigit = true;
+			if (mantissa != 0 || b != '0') {
+				if (digits < MAX_FAST_DIGITS + 1) {
+					mantissa = mantissa * 10 + (b - '0');
+				}
+				else {
+					exponent++;
+				}
+				digits++;
+			}
+			i++;
+		}
+		if (i < end && buffer.get(i) == '.') {
+			i++;
+			while (i < end && (b = buffer.get(i)) >= '0' && b <= '9') {
+				seenDigit = true;
+				if (mantissa != 0 || b != '0') {
+					if (digits < MAX_FAST_DIGITS + 1) {
+						mantissa = mantissa * 10 + (b - '0');
+						exponent--;
+					}
+					digits++;
+				}
+				else {
+					exponent--;
+				}
+				i++;
+			}
+		}
+		if (seenDigit && i < end && ((b = buffer.get(i)) == 'e' || b == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && ((b = buffer.get(i)) == '-' || b == '+')) {
+				negativeExponent = b == '-';
+				i++;
+			}
+			int value = 0;
+			boolean seenExponentDigit = false;
+			while (i < end && (b = buffer.get(i)) >= '0' && b <= '9') {
+				seenExponentDigit = true;
+				value = value < 100000 ? value * 10 + (b - '0') : value;
+				i++;
+			}
+			if (!seenExponentDigit) {
+				return slowParse(buffer, start, end);
+			}
+			exponent += negativeExponent ? -value : value;
+		}
+
+		if (!seenDigit || i != end || digits > MAX_FAST_DIGITS) {
+			return slowParse(buffer, start, end);
+		}
+		double value;
+		if (mantissa == 0) {
+			value = 0;
+		}
+		else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+			value = mantissa * POWERS_OF_TEN[exponent];
+		}
+		else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+			value = mantissa / POWERS_OF_TEN[-exponent];
+		}
+		else {
+			return slowParse(buffer, start, end);
+		}
+		return negative ? -value : value;
+	}
+
+	private static double slowParse(ByteBuffer buffer, int start, int end) throws NumberFormatException {
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(start + i);
+		}
+		return Double.parseDouble(new String(bytes, StandardCharsets.ISO_8859_1));
+	}
+
+	private static boolean isSpace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+}
@@ -0,0 +1,167 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A growable array of doubles stored outside the Java heap. Values live in
+ * fixed size chunks of direct memory, so the array can hold more than 2^31
+ * values, is indexed with longs and adds nothing for the garbage collector to
+ * scan or move. Chunks are allocated as the array grows and released with
+ * the array.
+ *
+ */
+public class OffHeapDoubleArray implements DoubleConsumer {
+	/** Default number of values in a full chunk (32 MB of direct memory). */
+	public static final int CHUNK_SIZE = 1 << 22;
+	private static final int CHUNK_SHIFT = 22;
+
+	private final int chunkShift;
+	private final int chunkSize;
+	private final int chunkMask;
+	private final ArrayList<DoubleBuffer> chunks;
+	private long size;
+
+	/**
+	 * Constructor. Create an empty array.
+	 */
+	public OffHeapDoubleArray() {
+		this(CHUNK_SHIFT);
+	}
+
+	/**
+	 * Constructor. Create an empty array with chunks of 2^chunkShift values,
+	 * so tests can span several chunks with few values.
+	 */
+	OffHeapDoubleArray(int chunkShift) {
+		this.chunkShift = chunkShift;
+		this.chunkSize = 1 << chunkShift;
+		this.chunkMask = chunkSize - 1;
+		chunks = new ArrayList<DoubleBuffer>();
+		size = 0;
+	}
+
+	/**
+	 * Append a value.
+	 * @param value the value to be appended.
+	 */
+	@Override
+	public void accept(double value) {
+		int offset = (int) (size & chunkMask);
+		if (offset == 0 && (size >>> chunkShift) == chunks.size()) {
+			allocateChunk();
+		}
+		chunks.get((int) (size >>> chunkShift)).put(offset, value);
+		size++;
+	}
+
+	/**
+	 * Append len values of an array, starting at off.
+	 * @param src source array.
+	 * @param off first index in src.
+	 * @param len number of values to be appended.
+	 */
+	public void addAll(double[] src, int off, int len) {
+		while (len > 0) {
+			int offset = (int) (size & chunkMask);
+			if (offset == 0 && (size >>> chunkShift) == chunks.size()) {
+				allocateChunk();
+			}
+			int count = Math.min(len, chunkSize - offset);
+			DoubleBuffer chunk = chunks.get((int) (size >>> chunkShift)).duplicate();
+			chunk.position(offset);
+			chunk.put(src, off, count);
+			size += count;
+			off += count;
+			len -= count;
+		}
+	}
+
+	/**
+	 * Append the remaining values of a buffer. The position of the buffer is
+	 * not changed.
+	 * @param src source buffer.
+	 */
+	public void addAll(DoubleBuffer src) {
+		DoubleBuffer rest = src.duplicate();
+		while (rest.hasRemaining()) {
+			int offset = (int) (size & chunkMask);
+			if (offset == 0 && (size >>> chunkShift) == chunks.size()) {
+				allocateChunk();
+			}
+			int count = Math.min(rest.remaining(), chunkSize - offset);
+			DoubleBuffer chunk = chunks.get((int) (size >>> chunkShift)).duplicate();
+			chunk.position(offset);
+			DoubleBuffer part = rest.duplicate();
+			part.limit(part.position() + count);
+			chunk.put(part);
+			rest.position(rest.position() + count);
+			size += count;
+		}
+	}
+
+	/**
+	 * Return the value at the given index.
+	 * @param index index of the value.
+	 * @return the value at index.
+	 * @throws IndexOutOfBoundsException if index is not below size().
+	 */
+	public double get(long index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of range for size " + size);
+		}
+		return chunks.get((int) (index >>> chunkShift)).get((int) (index & chunkMask));
+	}
+
+	/**
+	 * Return number of values.
+	 * @return number of values.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Return number of values in a full chunk.
+	 * @return the chunk size.
+	 */
+	public int chunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Return number of chunks which hold values.
+	 * @return number of chunks.
+	 */
+	public int chunkCount() {
+		return (int) ((size + chunkMask) >>> chunkShift);
+	}
+
+	/**
+	 * Return a view of the values of one chunk. Every chunk but the last one
+	 * is full. Writing through the view changes the array.
+	 * @param index index of the chunk.
+	 * @return a buffer whose position is 0 and whose limit is the number of
+	 *         values in the chunk.
+	 */
+	public DoubleBuffer chunk(int index) {
+		DoubleBuffer view = chunks.get(index).duplicate();
+		long length = Math.min(chunkSize, size - ((long) index << chunkShift));
+		view.limit((int) length);
+		return view;
+	}
+
+	/**
+	 * Remove every value and release the chunks.
+	 */
+	public void clear() {
+		chunks.clear();
+		size = 0;
+	}
+
+	private void allocateChunk() {
+		chunks.add(ByteBuffer.allocateDirect(chunkSize * Double.BYTES).order(ByteOrder.nativeOrder())
+				.asDoubleBuffer());
+	}
+}
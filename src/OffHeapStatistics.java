@@ -0,0 +1,566 @@
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Descriptive statistics of a data set kept in an {@link OffHeapDoubleArray}.
+ * It provides the same measures as {@link Statistics} with long counts, so
+ * data sets of more than 2^31 values can be analysed with a small heap: only
+ * one chunk at a time is copied to the heap.
+ * <ul>
+ * <li>Moment based measures are computed chunk by chunk with the kernels of
+ *     {@link Summary}, in the same order whatever the pool size.</li>
+ * <li>Order statistics sort every chunk in place once, then find the k-th
+ *     smallest value by bisecting the value range, counting the values at
+ *     most a candidate with a binary search in each chunk.</li>
+ * <li>Modes merge the sorted chunks and measure the runs of equal values.</li>
+ * </ul>
+ *
+ */
+public class OffHeapStatistics {
+	private OffHeapDoubleArray data;
+	private boolean sorted;
+	private ParallelExecution execution;
+	private double[] block;
+
+	private boolean hasMoments;
+	private double min;
+	private double max;
+	private double mean;
+	private double harmonicMean;
+	private double mad;
+	private double sumOfSquares;
+	private long modeCount;
+	private double[] modes;
+
+	/**
+	 * Constructor. Create a model without data.
+	 */
+	public OffHeapStatistics() {
+		clear();
+	}
+
+	/**
+	 * Take ownership of an off-heap array as the data set. Chunks of the
+	 * array are sorted in place when an order statistic is asked for.
+	 * @param dataset given dataset.
+	 */
+	public void readData(OffHeapDoubleArray dataset) {
+		load(dataset, false);
+	}
+
+	/**
+	 * Read dataset from a text file with one number per line, without
+	 * holding the values on the heap.
+	 * @param fileName path of the file to be read.
+	 * @throws IOException if the file cannot be read.
+	 * @throws NumberFormatException if a line is not a number.
+	 */
+	public void readFile(String fileName) throws IOException, NumberFormatException {
+		OffHeapDoubleArray dataset = new OffHeapDoubleArray();
+		NumberFileReader.forEach(fileName, dataset);
+		load(dataset, false);
+	}
+
+	/**
+	 * Read dataset from a binary data set file of any size.
+	 * @param fileName path of the binary data set file.
+	 * @throws IOException if the file cannot be read or is not a valid binary
+	 *         data set.
+	 */
+	public void readBinary(String fileName) throws IOException {
+		OffHeapDoubleArray dataset = new OffHeapDoubleArray();
+		boolean isSorted = BinaryDataset.readInto(fileName, dataset);
+		load(dataset, isSorted);
+	}
+
+	/**
+	 * Write the data set to a binary data set file.
+	 * @param fileName path of the file to be written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void writeBinary(String fileName) throws IOException {
+		try (BinaryDatasetWriter writer = new BinaryDatasetWriter(fileName)) {
+			for (int i = 0; i < data.chunkCount(); i++) {
+				writer.acceptAll(copyChunk(i));
+			}
+		}
+	}
+
+	private void load(OffHeapDoubleArray dataset, boolean isSorted) {
+		this.data = dataset;
+		this.sorted = isSorted;
+		this.hasMoments = false;
+		this.modeCount = -1;
+		this.modes = null;
+	}
+
+	public void clear() {
+		load(new OffHeapDoubleArray(), true);
+		this.block = null;
+	}
+
+	/**
+	 * Run the chunk sorts and reductions on a ForkJoinPool.
+	 * @param execution parallel execution settings, or null to run every
+	 *                  measure on the calling thread.
+	 */
+	public void setParallelExecution(ParallelExecution execution) {
+		this.execution = execution;
+	}
+
+	/**
+	 * Return count of value in the data set.
+	 * @return a number that is the count of value in the data set.
+	 */
+	public long getCount() {
+		return data.size();
+	}
+
+	/**
+	 * Return the smallest number in the data set.
+	 * @return the smallest number in the data set.
+	 */
+	public double getMin() {
+		ensureMoments();
+		return min;
+	}
+
+	/**
+	 * Return the largest number in the data set.
+	 * @return the largest number in the data set.
+	 */
+	public double getMax() {
+		ensureMoments();
+		return max;
+	}
+
+	/**
+	 * Return arithmetic mean of the data set.
+	 * @return arithmetic mean of the data set.
+	 */
+	public double getMean() {
+		ensureMoments();
+		return mean;
+	}
+
+	/**
+	 * Return the harmonic mean of the data set.
+	 * @return harmonic mean of the data set.
+	 */
+	public double getHarmonicMean() {
+		ensureMoments();
+		return harmonicMean;
+	}
+
+	/**
+	 * Return the mean of absolute deviation of the data set.
+	 * @return mean of absolute deviation of the data set.
+	 */
+	public double getMAD() {
+		ensureMoments();
+		return mad;
+	}
+
+	/**
+	 * Return the sample variance.
+	 * @return sample variance of the data set.
+	 */
+	public double getVariance() {
+		ensureMoments();
+		return sumOfSquares / (data.size() - 1);
+	}
+
+	/**
+	 * Return the sample standard deviation.
+	 * @return sample standard deviation of the data set.
+	 */
+	public double getSD() {
+		return Statistics.sqrt(getVariance());
+	}
+
+	/**
+	 * Return the population variance.
+	 * @return population variance of the data set.
+	 */
+	public double getPVariance() {
+		ensureMoments();
+		return sumOfSquares / data.size();
+	}
+
+	/**
+	 * Return the population standard deviation.
+	 * @return population standard deviation of the data set.
+	 */
+	public double getPSD() {
+		return Statistics.sqrt(getPVariance());
+	}
+
+	/**
+	 * Return the median of the data set.
+	 * @return the middle number of the data set if there are odd number of data.
+	 *         Otherwise, the arithmetic mean of the two middle numbers is returned.
+	 */
+	public double getMedian() {
+		long half = data.size() / 2;
+		if (data.size() % 2 == 0) {
+			return (orderStatistic(half) + orderStatistic(half - 1)) / 2.0;
+		}
+		return orderStatistic(half);
+	}
+
+	/**
+	 * Return the p-th percentile of the data set, interpolating linearly
+	 * between the closest ranks.
+	 * @param p percentile between 0 and 100.
+	 * @return the value below which p percent of the data set falls.
+	 * @throws IllegalArgumentException if p is not between 0 and 100.
+	 */
+	public double getPercentile(double p) throws IllegalArgumentException {
+		if (!(p >= 0 && p <= 100)) {
+			throw new IllegalArgumentException("The percentile should be between 0 and 100, your percentile: " + p);
+		}
+		return interpolate(p / 100 * (data.size() - 1));
+	}
+
+	/**
+	 * Return several quantiles of the data set at once.
+	 * @param q quantiles between 0 and 1.
+	 * @return an array which contains the quantile for each argument in order.
+	 * @throws IllegalArgumentException if a quantile is not between 0 and 1.
+	 */
+	public double[] getQuantiles(double... q) throws IllegalArgumentException {
+		for (double quantile : q) {
+			if (!(quantile >= 0 && quantile <= 1)) {
+				throw new IllegalArgumentException("The quantile should be between 0 and 1, your quantile: " + quantile);
+			}
+		}
+		double[] result = new double[q.length];
+		for (int i = 0; i < q.length; i++) {
+			result[i] = interpolate(q[i] * (data.size() - 1));
+		}
+		return result;
+	}
+
+	/**
+	 * Return a list of most frequent number(s) in the data set.
+	 * @return an ArrayList which contains most frequent number(s)
+	 *         in the data set.
+	 */
+	public ArrayList<Double> getMode() {
+		double[] modes = getMode(Integer.MAX_VALUE);
+		ArrayList<Double> mode = new ArrayList<Double>(modes.length);
+		for (double num : modes) {
+			mode.add(num);
+		}
+		return mode;
+	}
+
+	/**
+	 * Return at most limit most frequent number(s) in ascending order. The
+	 * modes found are kept until the data set changes, so only a limit above
+	 * the modes kept so far merges the chunks again.
+	 * @param limit maximum number of modes to be returned.
+	 * @return an array which contains the first limit most frequent number(s)
+	 *         in the data set.
+	 * @throws IllegalArgumentException if limit is negative.
+	 */
+	public double[] getMode(int limit) throws IllegalArgumentException {
+		if (limit < 0) {
+			throw new IllegalArgumentException("The limit should not be negative, your limit: " + limit);
+		}
+		if (modes == null || (limit > modes.length && modes.length < modeCount)) {
+			double[] found = scanModes(limit);
+			if (modes == null || found.length > modes.length) {
+				modes = found;
+			}
+		}
+		return Arrays.copyOf(modes, Math.min(limit, modes.length));
+	}
+
+	/**
+	 * Return how many distinct numbers share the highest frequency.
+	 * @return number of modes in the data set.
+	 */
+	public long getModeCount() {
+		if (modeCount < 0) {
+			scanModes(0);
+		}
+		return modeCount;
+	}
+
+	/**
+	 * Print all information of the data set.
+	 */
+	public void printAll() {
+		System.out.println("Number of values: " + getCount());
+		System.out.println("Min: " + getMin());
+		System.out.println("Max: " + getMax());
+		double[] mode = getMode(5);
+		System.out.print("mode: ");
+
+		for (double num : mode) {
+			System.out.print(num + " ");
+		}
+
+		long count = getModeCount();
+		if (count > mode.length) {
+			System.out.println("... and " + (count - mode.length) + " more value(s)");
+		}
+		else {
+			System.out.println();
+		}
+
+		System.out.println("Median: " + getMedian());
+		System.out.println("Mean: " + getMean());
+		System.out.println("Mean Absolute Deviation: " + getMAD());
+		System.out.println("Sample variance: " + getVariance());
+		System.out.println("Sample standard deviation: " + getSD());
+		System.out.println("Population variance: " + getPVariance());
+		System.out.println("Population standard deviation: " + getPSD());
+		System.out.println("Harmonic mean: " + getHarmonicMean());
+	}
+
+	/**
+	 * Compute the moment based measures chunk by chunk if needed.
+	 */
+	private void ensureMoments() {
+		if (hasMoments) {
+			return;
+		}
+		long n = data.size();
+		double[] first = reduce(new Summary.FirstPass());
+		double average = Summary.FirstPass.sum(first) / n;
+		double[] second = reduce(new Summary.SecondPass(average));
+		min = first[2];
+		max = first[3];
+		mean = average;
+		harmonicMean = n / Summary.FirstPass.reciprocalSum(first);
+		mad = Summary.SecondPass.absoluteDeviations(second) / n;
+		sumOfSquares = Summary.SecondPass.sumOfSquares(second, n);
+		hasMoments = true;
+	}
+
+	private double[] reduce(ParallelExecution.Kernel kernel) {
+		double[] result = kernel.identity();
+		for (int i = 0; i < data.chunkCount(); i++) {
+			kernel.combine(result, Summary.reduce(copyChunk(i), execution, kernel));
+		}
+		return result;
+	}
+
+	/**
+	 * Sort every chunk in place if the chunks are not sorted yet.
+	 */
+	private void ensureSorted() {
+		if (sorted) {
+			return;
+		}
+		for (int i = 0; i < data.chunkCount(); i++) {
+			double[] values = copyChunk(i);
+			if (execution != null) {
+				execution.sort(values);
+			}
+			else {
+				Arrays.sort(values);
+			}
+			data.chunk(i).put(values);
+		}
+		sorted = true;
+	}
+
+	/**
+	 * Return the values of a chunk in a heap array. Full chunks share one
+	 * scratch array, so the result is only valid until the next call.
+	 */
+	private double[] copyChunk(int index) {
+		DoubleBuffer chunk = data.chunk(index);
+		double[] values;
+		if (chunk.remaining() == data.chunkSize()) {
+			if (block == null || block.length != chunk.remaining()) {
+				block = new double[chunk.remaining()];
+			}
+			values = block;
+		}
+		else {
+			values = new double[chunk.remaining()];
+		}
+		chunk.get(values);
+		return values;
+	}
+
+	/**
+	 * Return the value at the given fractional position of the sorted data
+	 * set, interpolating linearly between the two neighbouring values.
+	 */
+	private double interpolate(double position) {
+		long k = (long) position;
+		double fraction = position - k;
+		double lower = orderStatistic(k);
+		if (fraction == 0) {
+			return lower;
+		}
+		return Selection.interpolate(lower, orderStatistic(k + 1), fraction);
+	}
+
+	/**
+	 * Return the k-th smallest value. The value range is bisected on the
+	 * order preserving integer image of the doubles, so it takes at most 64
+	 * rounds of one binary search per chunk.
+	 * @param k index in the sorted order.
+	 * @return the k-th smallest value.
+	 * @throws IndexOutOfBoundsException if k is not a valid index.
+	 */
+	private double orderStatistic(long k) throws IndexOutOfBoundsException {
+		if (k < 0 || k >= data.size()) {
+			throw new IndexOutOfBoundsException("Index " + k + " out of range for size " + data.size());
+		}
+		ensureSorted();
+		long lo = Long.MAX_VALUE;
+		long hi = Long.MIN_VALUE;
+		for (int i = 0; i < data.chunkCount(); i++) {
+			DoubleBuffer chunk = data.chunk(i);
+			lo = Math.min(lo, orderedBits(chunk.get(0)));
+			hi = Math.max(hi, orderedBits(chunk.get(chunk.limit() - 1)));
+		}
+		while (lo < hi) {
+			// Floor of the average without overflow.
+			long mid = (lo & hi) + ((lo ^ hi) >> 1);
+			if (countAtMost(fromOrderedBits(mid)) > k) {
+				hi = mid;
+			}
+			else {
+				lo = mid + 1;
+			}
+		}
+		return fromOrderedBits(lo);
+	}
+
+	/**
+	 * Return number of values at most the given value, as by Double.compare.
+	 */
+	private long countAtMost(double value) {
+		long count = 0;
+		for (int i = 0; i < data.chunkCount(); i++) {
+			DoubleBuffer chunk = data.chunk(i);
+			int low = 0;
+			int high = chunk.limit();
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (Double.compare(chunk.get(mid), value) <= 0) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			count += low;
+		}
+		return count;
+	}
+
+	/**
+	 * Return a long which orders like the double does under Double.compare.
+	 */
+	private static long orderedBits(double value) {
+		long bits = Double.doubleToLongBits(value);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	private static double fromOrderedBits(long bits) {
+		return Double.longBitsToDouble(bits ^ ((bits >> 63) & Long.MAX_VALUE));
+	}
+
+	/**
+	 * Merge the sorted chunks and measure the runs of equal values. Records
+	 * the number of modes and returns the first limit of them.
+	 */
+	private double[] scanModes(int limit) {
+		ensureSorted();
+		int chunkCount = data.chunkCount();
+		DoubleBuffer[] chunks = new DoubleBuffer[chunkCount];
+		int[] heap = new int[chunkCount];
+		for (int i = 0; i < chunkCount; i++) {
+			chunks[i] = data.chunk(i);
+			heap[i] = i;
+		}
+		int heapSize = chunkCount;
+		for (int i = heapSize / 2 - 1; i >= 0; i--) {
+			siftDown(heap, heapSize, i, chunks);
+		}
+
+		DoubleArrayBuilder modes = new DoubleArrayBuilder();
+		long maxRun = 0;
+		long count = 0;
+		long run = 0;
+		long runBits = 0;
+		while (heapSize > 0) {
+			DoubleBuffer chunk = chunks[heap[0]];
+			double value = chunk.get();
+			long bits = Double.doubleToLongBits(value);
+			if (run > 0 && bits == runBits) {
+				run++;
+			}
+			else {
+				if (run > 0) {
+					count = recordRun(Double.longBitsToDouble(runBits), run, maxRun, count, modes, limit);
+					maxRun = Math.max(maxRun, run);
+				}
+				run = 1;
+				runBits = bits;
+			}
+			if (!chunk.hasRemaining()) {
+				heap[0] = heap[--heapSize];
+			}
+			siftDown(heap, heapSize, 0, chunks);
+		}
+		if (run > 0) {
+			count = recordRun(Double.longBitsToDouble(runBits), run, maxRun, count, modes, limit);
+		}
+		modeCount = count;
+		return modes.toArray();
+	}
+
+	/**
+	 * Account for a finished run against the longest runs so far and return
+	 * the new number of modes.
+	 */
+	private static long recordRun(double value, long run, long maxRun, long count, DoubleArrayBuilder modes,
+			int limit) {
+		if (run > maxRun) {
+			modes.clear();
+			count = 0;
+		}
+		else if (run < maxRun) {
+			return count;
+		}
+		if (modes.size() < limit) {
+			modes.add(value);
+		}
+		return count + 1;
+	}
+
+	private static void siftDown(int[] heap, int size, int i, DoubleBuffer[] chunks) {
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				return;
+			}
+			if (child + 1 < size && peek(chunks[heap[child + 1]]) < peek(chunks[heap[child]])) {
+				child++;
+			}
+			if (peek(chunks[heap[child]]) >= peek(chunks[heap[i]])) {
+				return;
+			}
+			int swap = heap[i];
+			heap[i] = heap[child];
+			heap[child] = swap;
+			i = child;
+		}
+	}
+
+	private static long peek(DoubleBuffer chunk) {
+		return orderedBits(chunk.get(chunk.position()));
+	}
+}
@@ -0,0 +1,368 @@
+import java.util.Arrays;
+
+/**
+ * A sorted multiset of doubles that can be indexed by rank. It is a treap
+ * kept in parallel primitive arrays: each node holds a distinct value, how
+ * many times the value occurs and the total count of its subtree, so adding,
+ * removing and finding the k-th smallest value all take O(log n) expected
+ * time. Values are ordered as by Double.compare.
+ *
+ */
+public class OrderStatisticTree {
+	private static final int NIL = 0;
+
+	private double[] keys;
+	private int[] counts;
+	private int[] sizes;
+	private int[] left;
+	private int[] right;
+	private int[] priorities;
+	private int nodes;
+	private int freeList;
+	private int root;
+	private int seed;
+	private boolean removed;
+
+	/**
+	 * Constructor. Create an empty tree.
+	 */
+	public OrderStatisticTree() {
+		this(16);
+	}
+
+	/**
+	 * Constructor. Create an empty tree with room for the given number of
+	 * distinct values.
+	 * @param capacity initial number of distinct values.
+	 */
+	public OrderStatisticTree(int capacity) {
+		int length = Math.max(capacity, 1) + 1;
+		keys = new double[length];
+		counts = new int[length];
+		sizes = new int[length];
+		left = new int[length];
+		right = new int[length];
+		priorities = new int[length];
+		nodes = 1;
+		freeList = NIL;
+		root = NIL;
+		seed = 0x2545F491;
+	}
+
+	/**
+	 * Return a tree holding the given values, built in O(n) time. Repeated
+	 * values share a node and the nodes form a perfectly balanced tree.
+	 * @param sorted values sorted ascending as by Double.compare.
+	 * @return a tree holding every value.
+	 */
+	public static OrderStatisticTree fromSorted(double[] sorted) {
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || Double.compare(sorted[i - 1], sorted[i]) != 0) {
+				distinct++;
+			}
+		}
+		OrderStatisticTree tree = new OrderStatisticTree(distinct);
+		for (int i = 0; i < sorted.length; i++) {
+			int t = tree.nodes - 1;
+			if (i > 0 && Double.compare(sorted[i - 1], sorted[i]) == 0) {
+				tree.counts[t]++;
+			}
+			else {
+				t = tree.nodes++;
+				tree.keys[t] = sorted[i];
+				tree.counts[t] = 1;
+			}
+		}
+		tree.root = tree.link(1, tree.nodes, 0);
+		return tree;
+	}
+
+	/**
+	 * Link the nodes [from, to), which are in key order, into a balanced
+	 * subtree. Priorities fall with depth so the heap order holds and later
+	 * insertions land below the bulk loaded nodes.
+	 */
+	private int link(int from, int to, int depth) {
+		if (from >= to) {
+			return NIL;
+		}
+		int t = (from + to) >>> 1;
+		left[t] = link(from, t, depth + 1);
+		right[t] = link(t + 1, to, depth + 1);
+		priorities[t] = Integer.MAX_VALUE - depth;
+		sizes[t] = sizes[left[t]] + sizes[right[t]] + counts[t];
+		return t;
+	}
+
+	/**
+	 * Add a value.
+	 * @param value the value to be added.
+	 */
+	public void add(double value) {
+		root = insert(root, value);
+	}
+
+	/**
+	 * Remove one occurrence of a value.
+	 * @param value the value to be removed.
+	 * @return true if the value was present.
+	 */
+	public boolean remove(double value) {
+		removed = false;
+		root = delete(root, value);
+		return removed;
+	}
+
+	/**
+	 * Remove every value.
+	 */
+	public void clear() {
+		nodes = 1;
+		freeList = NIL;
+		root = NIL;
+	}
+
+	/**
+	 * Return number of values, counting repeated values.
+	 * @return number of values.
+	 */
+	public int size() {
+		return sizes[root];
+	}
+
+	/**
+	 * Return the k-th smallest value, starting from 0.
+	 * @param k rank of the value.
+	 * @return the value with rank k.
+	 * @throws IndexOutOfBoundsException if k is not a valid rank.
+	 */
+	public double select(int k) throws IndexOutOfBoundsException {
+		if (k < 0 || k >= size()) {
+			throw new IndexOutOfBoundsException("Rank " + k + " out of range for size " + size());
+		}
+		int t = root;
+		while (true) {
+			int leftSize = sizes[left[t]];
+			if (k < leftSize) {
+				t = left[t];
+			}
+			else if (k < leftSize + counts[t]) {
+				return keys[t];
+			}
+			else {
+				k -= leftSize + counts[t];
+				t = right[t];
+			}
+		}
+	}
+
+	/**
+	 * Return number of values strictly smaller than the given value.
+	 * @param value the value to be ranked.
+	 * @return the rank of the value.
+	 */
+	public int rank(double value) {
+		int rank = 0;
+		int t = root;
+		while (t != NIL) {
+			int cmp = Double.compare(value, keys[t]);
+			if (cmp <= 0) {
+				if (cmp == 0) {
+					return rank + sizes[left[t]];
+				}
+				t = left[t];
+			}
+			else {
+				rank += sizes[left[t]] + counts[t];
+				t = right[t];
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Return how many times a value occurs.
+	 * @param value the value to be counted.
+	 * @return number of occurrences of the value.
+	 */
+	public int count(double value) {
+		int t = root;
+		while (t != NIL) {
+			int cmp = Double.compare(value, keys[t]);
+			if (cmp == 0) {
+				return counts[t];
+			}
+			t = cmp < 0 ? left[t] : right[t];
+		}
+		return 0;
+	}
+
+	/**
+	 * Return the value at a fractional rank, interpolating linearly between
+	 * the two neighbouring values like {@link Statistics#getPercentile}.
+	 * @param position rank between 0 and size - 1.
+	 * @return the interpolated value.
+	 */
+	public double interpolate(double position) {
+		int k = (int) position;
+		double fraction = position - k;
+		double lower = select(k);
+		if (fraction == 0) {
+			return lower;
+		}
+		return Selection.interpolate(lower, select(k + 1), fraction);
+	}
+
+	/**
+	 * Return every value in ascending order, repeated values repeated.
+	 * @return a new sorted array of size size().
+	 */
+	public double[] toArray() {
+		double[] result = new double[size()];
+		int[] stack = new int[16];
+		int depth = 0;
+		int position = 0;
+		int t = root;
+		while (t != NIL || depth > 0) {
+			while (t != NIL) {
+				if (depth == stack.length) {
+					stack = Arrays.copyOf(stack, depth * 2);
+				}
+				stack[depth++] = t;
+				t = left[t];
+			}
+			t = stack[--depth];
+			Arrays.fill(result, position, position + counts[t], keys[t]);
+			position += counts[t];
+			t = right[t];
+		}
+		return result;
+	}
+
+	private int insert(int t, double value) {
+		if (t == NIL) {
+			return newNode(value);
+		}
+		int cmp = Double.compare(value, keys[t]);
+		if (cmp == 0) {
+			counts[t]++;
+		}
+		else if (cmp < 0) {
+			// Insert first: it may grow the arrays, so index them afterwards.
+			int child = insert(left[t], value);
+			left[t] = child;
+			if (priorities[child] > priorities[t]) {
+				t = rotateRight(t);
+			}
+		}
+		else {
+			int child = insert(right[t], value);
+			right[t] = child;
+			if (priorities[child] > priorities[t]) {
+				t = rotateLeft(t);
+			}
+		}
+		sizes[t] = sizes[left[t]] + sizes[right[t]] + counts[t];
+		return t;
+	}
+
+	private int delete(int t, double value) {
+		if (t == NIL) {
+			return NIL;
+		}
+		int cmp = Double.compare(value, keys[t]);
+		if (cmp < 0) {
+			left[t] = delete(left[t], value);
+		}
+		else if (cmp > 0) {
+			right[t] = delete(right[t], value);
+		}
+		else if (counts[t] > 1) {
+			counts[t]--;
+			removed = true;
+		}
+		else if (left[t] == NIL || right[t] == NIL) {
+			int child = left[t] == NIL ? right[t] : left[t];
+			freeNode(t);
+			removed = true;
+			return child;
+		}
+		else if (priorities[left[t]] > priorities[right[t]]) {
+			t = rotateRight(t);
+			right[t] = delete(right[t], value);
+		}
+		else {
+			t = rotateLeft(t);
+			left[t] = delete(left[t], value);
+		}
+		if (removed) {
+			sizes[t] = sizes[left[t]] + sizes[right[t]] + counts[t];
+		}
+		return t;
+	}
+
+	private int rotateRight(int t) {
+		int l = left[t];
+		left[t] = right[l];
+		right[l] = t;
+		sizes[t] = sizes[left[t]] + sizes[right[t]] + counts[t];
+		sizes[l] = sizes[left[l]] + sizes[right[l]] + counts[l];
+		return l;
+	}
+
+	private int rotateLeft(int t) {
+		int r = right[t];
+		right[t] = left[r];
+		left[r] = t;
+		sizes[t] = sizes[left[t]] + sizes[right[t]] + counts[t];
+		sizes[r] = sizes[left[r]] + sizes[right[r]] + counts[r];
+		return r;
+	}
+
+	private int newNode(double value) {
+		int t;
+		if (freeList != NIL) {
+			t = freeList;
+			freeList = left[t];
+		}
+		else {
+			if (nodes == keys.length) {
+				grow();
+			}
+			t = nodes++;
+		}
+		keys[t] = value;
+		counts[t] = 1;
+		sizes[t] = 1;
+		left[t] = NIL;
+		right[t] = NIL;
+		priorities[t] = nextPriority();
+		return t;
+	}
+
+	private void freeNode(int t) {
+		left[t] = freeList;
+		freeList = t;
+	}
+
+	private void grow() {
+		int length = keys.length + (keys.length >> 1) + 1;
+		keys = Arrays.copyOf(keys, length);
+		counts = Arrays.copyOf(counts, length);
+		sizes = Arrays.copyOf(sizes, length);
+		left = Arrays.copyOf(left, length);
+		right = Arrays.copyOf(right, length);
+		priorities = Arrays.copyOf(priorities, length);
+	}
+
+	/**
+	 * Return a pseudorandom priority from a xorshift generator.
+	 */
+	private int nextPriority() {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+}
@@ -0,0 +1,197 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Settings and helpers for running reductions and sorts over a data set on a
+ * ForkJoinPool. Data sets smaller than the threshold are processed on the
+ * calling thread.
+ * <p>
+ * Reductions split the values into blocks of a fixed size and combine the
+ * block results in a binary tree whose shape depends only on the number of
+ * values, so a result is the same no matter how many threads the pool has.
+ *
+ */
+public class ParallelExecution {
+	/** Default size from which work is split across threads. */
+	public static final int DEFAULT_THRESHOLD = 1 << 18;
+	/** Number of values reduced by one leaf task. */
+	static final int BLOCK_SIZE = 1 << 14;
+
+	private final ForkJoinPool pool;
+	private final int threshold;
+
+	/**
+	 * Constructor. Use the given pool for data sets of at least threshold
+	 * values.
+	 * @param pool      pool which runs the parallel tasks.
+	 * @param threshold smallest data set size processed in parallel.
+	 * @throws IllegalArgumentException if threshold is negative.
+	 */
+	public ParallelExecution(ForkJoinPool pool, int threshold) throws IllegalArgumentException {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("The threshold should not be negative, your threshold: " + threshold);
+		}
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Return settings which use the common pool and the default threshold.
+	 * @return the default parallel execution settings.
+	 */
+	public static ParallelExecution commonPool() {
+		return new ParallelExecution(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Return true if a data set of the given size is processed in parallel.
+	 * @param size number of values.
+	 * @return true if the size reaches the threshold.
+	 */
+	public boolean isParallel(int size) {
+		return size >= threshold;
+	}
+
+	/**
+	 * Sort the values ascending, in the order of Arrays.sort. Large arrays are
+	 * cut into one run per thread of the pool, or more, which are sorted by
+	 * Arrays.sort and merged in the pool. Arrays.parallelSort is not used
+	 * because it splits by the parallelism of the common pool, whatever the
+	 * pool it runs in.
+	 * @param values values to be sorted.
+	 */
+	public void sort(double[] values) {
+		if (isParallel(values.length) && pool.getParallelism() > 1) {
+			int leaf = Math.max(BLOCK_SIZE, values.length / (4 * pool.getParallelism()) + 1);
+			pool.invoke(new SortTask(values, new double[values.length], 0, values.length, leaf));
+		}
+		else {
+			Arrays.sort(values);
+		}
+	}
+
+	/**
+	 * Reduce the values block by block with the given kernel.
+	 * @param values values to be reduced.
+	 * @param kernel accumulates blocks and combines partial results.
+	 * @return the combined result of all blocks.
+	 */
+	public double[] reduce(double[] values, Kernel kernel) {
+		if (!isParallel(values.length)) {
+			double[] result = kernel.identity();
+			kernel.accumulate(values, 0, values.length, result);
+			return result;
+		}
+		int blocks = (values.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		return pool.invoke(new ReduceTask(values, kernel, 0, blocks));
+	}
+
+	/**
+	 * A reduction over a range of values into a small array of partial results.
+	 */
+	public interface Kernel {
+		/**
+		 * Return the partial result of an empty range.
+		 * @return a new array holding the identity of the reduction.
+		 */
+		double[] identity();
+
+		/**
+		 * Accumulate values[from..to) into the partial result.
+		 * @param values values to be reduced.
+		 * @param from   first index (inclusive).
+		 * @param to     last index (exclusive).
+		 * @param result partial result to be updated.
+		 */
+		void accumulate(double[] values, int from, int to, double[] result);
+
+		/**
+		 * Combine the partial result of the following range into left.
+		 * @param left  partial result of the earlier range, to be updated.
+		 * @param right partial result of the later range.
+		 */
+		void combine(double[] left, double[] right);
+	}
+
+	/**
+	 * Sorts values[from..to) by sorting both halves and merging them through
+	 * the buffer.
+	 */
+	private static class SortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] values;
+		private final double[] buffer;
+		private final int from;
+		private final int to;
+		private final int leaf;
+
+		SortTask(double[] values, double[] buffer, int from, int to, int leaf) {
+			this.values = values;
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= leaf) {
+				Arrays.sort(values, from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new SortTask(values, buffer, from, mid, leaf), new SortTask(values, buffer, mid, to, leaf));
+			if (Double.compare(values[mid - 1], values[mid]) <= 0) {
+				return;
+			}
+			int i = from;
+			int j = mid;
+			int k = from;
+			while (i < mid && j < to) {
+				// Double.compare puts -0.0 before 0.0 and NaN last, as Arrays.sort.
+				buffer[k++] = Double.compare(values[j], values[i]) < 0 ? values[j++] : values[i++];
+			}
+			System.arraycopy(values, i, buffer, k, mid - i);
+			System.arraycopy(buffer, from, values, from, k + mid - i - from);
+		}
+	}
+
+	/**
+	 * Reduces the blocks [first, last) by halving the block range, so the
+	 * combine order depends only on the number of blocks.
+	 */
+	private static class ReduceTask extends RecursiveTask<double[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] values;
+		private final Kernel kernel;
+		private final int first;
+		private final int last;
+
+		ReduceTask(double[] values, Kernel kernel, int first, int last) {
+			this.values = values;
+			this.kernel = kernel;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (last - first == 1) {
+				double[] result = kernel.identity();
+				int from = first * BLOCK_SIZE;
+				kernel.accumulate(values, from, Math.min(values.length, from + BLOCK_SIZE), result);
+				return result;
+			}
+			int mid = (first + last) >>> 1;
+			ReduceTask right = new ReduceTask(values, kernel, mid, last);
+			right.fork();
+			double[] left = new ReduceTask(values, kernel, first, mid).compute();
+			kernel.combine(left, right.join());
+			return left;
+		}
+	}
+}
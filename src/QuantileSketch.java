@@ -0,0 +1,400 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A mergeable approximate quantile sketch (KLL). Values are kept in a stack of
+ * compactors where an item at level h stands for 2^h input values. When a
+ * level is full it is sorted and every other item is promoted to the next
+ * level, so memory grows only with the logarithm of the input size. The rank
+ * error of a query is at most about 4/k of the count with high probability,
+ * where k is the accuracy parameter given at construction; most queries are
+ * well within half of that.
+ * <p>
+ * The sketch is a DoubleConsumer, so any loader that reports values one at a
+ * time (for example {@link NumberFileReader#forEach}) can feed it directly.
+ *
+ */
+public class QuantileSketch implements DoubleConsumer {
+	/** Default accuracy parameter, at most about 2% rank error in a few KB. */
+	public static final int DEFAULT_K = 200;
+
+	/** Smallest accepted accuracy parameter. */
+	public static final int MIN_K = 8;
+	private static final double CAPACITY_RATIO = 2.0 / 3.0;
+
+	private final int k;
+	private double[][] levels;
+	private int[] sizes;
+	private int levelCount;
+	private long count;
+	private double min;
+	private double max;
+	private long seed;
+
+	/**
+	 * Constructor. Create an empty sketch with the default accuracy.
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_K);
+	}
+
+	/**
+	 * Constructor. Create an empty sketch with the given accuracy parameter.
+	 * Larger values give smaller rank error and use more memory.
+	 * @param k accuracy parameter, at least 8.
+	 * @throws IllegalArgumentException if k is smaller than 8.
+	 */
+	public QuantileSketch(int k) throws IllegalArgumentException {
+		if (k < MIN_K) {
+			throw new IllegalArgumentException("The accuracy parameter should be at least " + MIN_K + ", your k: " + k);
+		}
+		this.k = k;
+		this.levels = new double[1][k];
+		this.sizes = new int[1];
+		this.levelCount = 1;
+		this.count = 0;
+		this.min = Double.POSITIVE_INFINITY;
+		this.max = Double.NEGATIVE_INFINITY;
+		this.seed = 0x9E3779B97F4A7C15L;
+	}
+
+	/**
+	 * Add a value to the sketch. NaN values are ignored.
+	 * @param value the value to be added.
+	 */
+	@Override
+	public void accept(double value) {
+		if (Double.isNaN(value)) {
+			return;
+		}
+		count++;
+		min = value < min ? value : min;
+		max = value > max ? value : max;
+		append(0, value);
+		if (sizes[0] >= capacity(0)) {
+			compress();
+		}
+	}
+
+	/**
+	 * Add all values of an array to the sketch.
+	 * @param values the values to be added.
+	 */
+	public void acceptAll(double[] values) {
+		for (double value : values) {
+			accept(value);
+		}
+	}
+
+	/**
+	 * Remove all values from the sketch.
+	 */
+	public void clear() {
+		Arrays.fill(sizes, 0);
+		levelCount = 1;
+		count = 0;
+		min = Double.POSITIVE_INFINITY;
+		max = Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Merge another sketch into this one. The other sketch is not changed.
+	 * Merging a sketch into itself counts every value twice.
+	 * @param other sketch built from another part of the data.
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.count == 0) {
+			return;
+		}
+		if (other == this) {
+			// The levels read from would grow while they are appended to.
+			other = copy();
+		}
+		for (int h = 0; h < other.levelCount; h++) {
+			for (int i = 0; i < other.sizes[h]; i++) {
+				append(h, other.levels[h][i]);
+			}
+		}
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		compress();
+	}
+
+	/**
+	 * Return number of values added to the sketch.
+	 * @return number of values added to the sketch.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Return the accuracy parameter of the sketch.
+	 * @return the accuracy parameter.
+	 */
+	public int getK() {
+		return k;
+	}
+
+	/**
+	 * Return the approximate q-th quantile of the values added so far.
+	 * @param q quantile between 0 and 1.
+	 * @return the approximate quantile, or NaN if the sketch is empty.
+	 * @throws IllegalArgumentException if q is not between 0 and 1.
+	 */
+	public double getQuantile(double q) throws IllegalArgumentException {
+		return getQuantiles(q)[0];
+	}
+
+	/**
+	 * Return several approximate quantiles of the values added so far.
+	 * @param q quantiles between 0 and 1.
+	 * @return an array which contains the quantile for each argument in order.
+	 * @throws IllegalArgumentException if a quantile is not between 0 and 1.
+	 */
+	public double[] getQuantiles(double... q) throws IllegalArgumentException {
+		for (double quantile : q) {
+			if (!(quantile >= 0 && quantile <= 1)) {
+				throw new IllegalArgumentException("The quantile should be between 0 and 1, your quantile: " + quantile);
+			}
+		}
+		double[] result = new double[q.length];
+		if (count == 0) {
+			Arrays.fill(result, Double.NaN);
+			return result;
+		}
+
+		// Collect (value, weight) pairs sorted by value.
+		int total = retained();
+		double[] values = new double[total];
+		long[] weights = new long[total];
+		int n = 0;
+		for (int h = 0; h < levelCount; h++) {
+			Arrays.sort(levels[h], 0, sizes[h]);
+			n = mergeSorted(values, weights, n, levels[h], sizes[h], 1L << h);
+		}
+
+		for (int j = 0; j < q.length; j++) {
+			if (q[j] == 0) {
+				result[j] = min;
+				continue;
+			}
+			if (q[j] == 1) {
+				result[j] = max;
+				continue;
+			}
+			long rank = (long) Math.ceil(q[j] * count);
+			long cumulative = 0;
+			int i = 0;
+			while (i < n - 1 && cumulative + weights[i] < rank) {
+				cumulative += weights[i];
+				i++;
+			}
+			result[j] = values[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Return the approximate number of values that are not greater than the
+	 * given value.
+	 * @param value the value to be ranked.
+	 * @return the approximate rank of the value.
+	 */
+	public long getRank(double value) {
+		long rank = 0;
+		for (int h = 0; h < levelCount; h++) {
+			for (int i = 0; i < sizes[h]; i++) {
+				if (levels[h][i] <= value) {
+					rank += 1L << h;
+				}
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Write the sketch in a compact binary form.
+	 * @param out destination of the sketch.
+	 * @throws IOException if the sketch cannot be written.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(k);
+		out.writeLong(count);
+		out.writeDouble(min);
+		out.writeDouble(max);
+		out.writeInt(levelCount);
+		for (int h = 0; h < levelCount; h++) {
+			out.writeInt(sizes[h]);
+			for (int i = 0; i < sizes[h]; i++) {
+				out.writeDouble(levels[h][i]);
+			}
+		}
+	}
+
+	/**
+	 * Read a sketch written by {@link #writeTo}.
+	 * @param in source of the sketch.
+	 * @return the sketch that was written.
+	 * @throws IOException if the sketch cannot be read or is malformed.
+	 */
+	public static QuantileSketch readFrom(DataInput in) throws IOException {
+		int k = in.readInt();
+		if (k < MIN_K) {
+			throw new IOException("Malformed quantile sketch, k: " + k);
+		}
+		QuantileSketch sketch = new QuantileSketch(k);
+		sketch.count = in.readLong();
+		sketch.min = in.readDouble();
+		sketch.max = in.readDouble();
+		int levelCount = in.readInt();
+		if (levelCount < 1 || levelCount > 64) {
+			throw new IOException("Malformed quantile sketch, levels: " + levelCount);
+		}
+		for (int h = 0; h < levelCount; h++) {
+			int size = in.readInt();
+			if (size < 0) {
+				throw new IOException("Malformed quantile sketch, level size: " + size);
+			}
+			for (int i = 0; i < size; i++) {
+				sketch.append(h, in.readDouble());
+			}
+		}
+		return sketch;
+	}
+
+	/**
+	 * Return number of items kept by the sketch.
+	 * @return number of retained items.
+	 */
+	public int retained() {
+		int total = 0;
+		for (int h = 0; h < levelCount; h++) {
+			total += sizes[h];
+		}
+		return total;
+	}
+
+	/**
+	 * Return an independent copy of the sketch.
+	 */
+	private QuantileSketch copy() {
+		QuantileSketch copy = new QuantileSketch(k);
+		copy.levels = new double[levels.length][];
+		for (int h = 0; h < levelCount; h++) {
+			copy.levels[h] = Arrays.copyOf(levels[h], sizes[h]);
+		}
+		copy.sizes = sizes.clone();
+		copy.levelCount = levelCount;
+		copy.count = count;
+		copy.min = min;
+		copy.max = max;
+		copy.seed = seed;
+		return copy;
+	}
+
+	private int capacity(int level) {
+		int depth = levelCount - level - 1;
+		return Math.max(2, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+	}
+
+	private void append(int level, double value) {
+		while (level >= levelCount) {
+			addLevel();
+		}
+		if (sizes[level] == levels[level].length) {
+			levels[level] = Arrays.copyOf(levels[level], Math.max(4, sizes[level] * 2));
+		}
+		levels[level][sizes[level]++] = value;
+	}
+
+	private void addLevel() {
+		if (levelCount == levels.length) {
+			levels = Arrays.copyOf(levels, levelCount * 2);
+			sizes = Arrays.copyOf(sizes, levelCount * 2);
+		}
+		levels[levelCount] = new double[4];
+		sizes[levelCount] = 0;
+		levelCount++;
+	}
+
+	/**
+	 * Compact every level that is over its capacity, lowest level first.
+	 */
+	private void compress() {
+		for (int h = 0; h < levelCount; h++) {
+			if (sizes[h] >= capacity(h)) {
+				compact(h);
+			}
+		}
+	}
+
+	/**
+	 * Sort a level and promote every other item to the next level. With an
+	 * odd number of items the largest one stays behind.
+	 */
+	private void compact(int level) {
+		int size = sizes[level];
+		double[] items = levels[level];
+		Arrays.sort(items, 0, size);
+		int even = size & ~1;
+		int offset = nextBit(items[size >>> 1]);
+		for (int i = offset; i < even; i += 2) {
+			append(level + 1, items[i]);
+		}
+		items = levels[level];
+		if (even < size) {
+			items[0] = items[size - 1];
+			sizes[level] = 1;
+		}
+		else {
+			sizes[level] = 0;
+		}
+	}
+
+	/**
+	 * Return a pseudorandom bit for choosing which half survives compaction.
+	 * The generator is stirred with a value from the level being compacted, so
+	 * results are reproducible for the same input while sketches built on
+	 * different shards do not share a coin sequence and their errors do not
+	 * add up when merged.
+	 */
+	private int nextBit(double stir) {
+		seed ^= Double.doubleToLongBits(stir) * 0x9E3779B97F4A7C15L;
+		if (seed == 0) {
+			seed = 0x9E3779B97F4A7C15L;
+		}
+		seed ^= seed << 13;
+		seed ^= seed >>> 7;
+		seed ^= seed << 17;
+		return (int) (seed >>> 63);
+	}
+
+	/**
+	 * Merge a sorted run of items with the given weight into the sorted
+	 * (values, weights) prefix of length n. Returns the new length.
+	 */
+	private static int mergeSorted(double[] values, long[] weights, int n, double[] items, int size, long weight) {
+		int i = n - 1;
+		int j = size - 1;
+		int dest = n + size - 1;
+		while (j >= 0) {
+			if (i >= 0 && values[i] > items[j]) {
+				values[dest] = values[i];
+				weights[dest] = weights[i];
+				i--;
+			}
+			else {
+				values[dest] = items[j];
+				weights[dest] = weight;
+				j--;
+			}
+			dest--;
+		}
+		return n + size;
+	}
+}
@@ -0,0 +1,201 @@
+/**
+ * Mean, sum of squared deviations and sum of reciprocals of a data set that
+ * is edited one value at a time. Adding and removing a value both take O(1):
+ * the sum and the sum of reciprocals are compensated as in {@link Summary},
+ * so the mean stays within a few units in the last place of the exact mean,
+ * and the squared deviations are updated with Welford's method from that
+ * mean. After as many removals as there are values left the owner should
+ * rebuild the moments from the data set so rounding does not drift.
+ *
+ */
+public class RunningMoments {
+	private long count;
+	private double sum;
+	private double sumError;
+	private double reciprocalSum;
+	private double reciprocalError;
+	private double m2;
+	private double m2Error;
+	private long removals;
+
+	/**
+	 * Constructor. Create moments of an empty data set.
+	 */
+	public RunningMoments() {
+		clear();
+	}
+
+	/**
+	 * Constructor. Create the moments of the given values.
+	 * @param values values of the data set.
+	 */
+	public RunningMoments(double[] values) {
+		clear();
+		for (double value : values) {
+			add(value);
+		}
+	}
+
+	/**
+	 * Add a value.
+	 * @param value the value to be added.
+	 */
+	public void add(double value) {
+		double before = count == 0 ? value : mean();
+		count++;
+		double t = sum + value;
+		sumError += roundingError(sum, value, t);
+		sum = t;
+		double reciprocal = 1 / value;
+		t = reciprocalSum + reciprocal;
+		reciprocalError += roundingError(reciprocalSum, reciprocal, t);
+		reciprocalSum = t;
+		double square = (value - before) * (value - mean());
+		t = m2 + square;
+		m2Error += roundingError(m2, square, t);
+		m2 = t;
+	}
+
+	/**
+	 * Remove a value which was added before.
+	 * @param value the value to be removed.
+	 */
+	public void remove(double value) {
+		double before = mean();
+		count--;
+		removals++;
+		if (count == 0) {
+			sum = 0;
+			sumError = 0;
+			reciprocalSum = 0;
+			reciprocalError = 0;
+			m2 = 0;
+			m2Error = 0;
+			return;
+		}
+		double t = sum - value;
+		sumError += roundingError(sum, -value, t);
+		sum = t;
+		double reciprocal = -1 / value;
+		t = reciprocalSum + reciprocal;
+		reciprocalError += roundingError(reciprocalSum, reciprocal, t);
+		reciprocalSum = t;
+		double square = -(value - mean()) * (value - before);
+		t = m2 + square;
+		m2Error += roundingError(m2, square, t);
+		m2 = t;
+		if (corrected(m2, m2Error) < 0) {
+			m2 = 0;
+			m2Error = 0;
+		}
+	}
+
+	/**
+	 * Remove every value.
+	 */
+	public void clear() {
+		count = 0;
+		sum = 0;
+		sumError = 0;
+		reciprocalSum = 0;
+		reciprocalError = 0;
+		m2 = 0;
+		m2Error = 0;
+		removals = 0;
+	}
+
+	/**
+	 * Return true once the removals since the moments were built outnumber
+	 * the values left, so they should be rebuilt from the data set.
+	 * @return true if the moments should be rebuilt.
+	 */
+	public boolean isStale() {
+		return removals > count;
+	}
+
+	/**
+	 * Return count of value.
+	 * @return count of value.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Return arithmetic mean.
+	 * @return arithmetic mean, or NaN if there is no value.
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : mean();
+	}
+
+	/**
+	 * Return the harmonic mean.
+	 * @return harmonic mean.
+	 */
+	public double getHarmonicMean() {
+		return count / corrected(reciprocalSum, reciprocalError);
+	}
+
+	/**
+	 * Return the sum of squared deviations from the mean.
+	 * @return sum of squared deviations from the mean.
+	 */
+	public double getSumOfSquares() {
+		return corrected(m2, m2Error);
+	}
+
+	/**
+	 * Return the sample variance.
+	 * @return sample variance.
+	 */
+	public double getVariance() {
+		return getSumOfSquares() / (count - 1);
+	}
+
+	/**
+	 * Return the population variance.
+	 * @return population variance.
+	 */
+	public double getPVariance() {
+		return getSumOfSquares() / count;
+	}
+
+	/**
+	 * Return the sample standard deviation.
+	 * @return sample standard deviation.
+	 */
+	public double getSD() {
+		return Statistics.sqrt(getVariance());
+	}
+
+	/**
+	 * Return the population standard deviation.
+	 * @return population standard deviation.
+	 */
+	public double getPSD() {
+		return Statistics.sqrt(getPVariance());
+	}
+
+	/**
+	 * Return the compensated mean of a non-empty data set.
+	 */
+	private double mean() {
+		return corrected(sum, sumError) / count;
+	}
+
+	/**
+	 * Return the exact rounding error of t = s + value (TwoSum).
+	 */
+	private static double roundingError(double s, double value, double t) {
+		double v = t - s;
+		return (s - (t - v)) + (value - v);
+	}
+
+	/**
+	 * Return a compensated sum, or the sum as is once it is not finite.
+	 */
+	private static double corrected(double sum, double error) {
+		return Double.isFinite(sum) ? sum + error : sum;
+	}
+}
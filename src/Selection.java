@@ -0,0 +1,161 @@
+import java.util.Arrays;
+
+/**
+ * Selection algorithms for order statistics. Finding the k-th smallest value
+ * with introselect takes linear time on average, so a single order statistic
+ * does not require sorting the whole data set.
+ *
+ */
+public final class Selection {
+	/** Ranges smaller than this are finished by insertion sort. */
+	private static final int INSERTION_THRESHOLD = 16;
+
+	private Selection() {
+	}
+
+	/**
+	 * Rearrange the values so that values[k] holds the value that would be at
+	 * index k if the array was sorted, every value before k is not greater and
+	 * every value after k is not smaller. Uses quickselect with a
+	 * median-of-three pivot and falls back to sorting the remaining range once
+	 * the recursion depth exceeds 2*log2(n), so the worst case is O(n log n).
+	 *
+	 * @param values values to be partially reordered.
+	 * @param k      index of the order statistic.
+	 * @return the k-th smallest value.
+	 */
+	public static double select(double[] values, int k) {
+		return select(values, 0, values.length - 1, k);
+	}
+
+	/**
+	 * Same as {@link #select(double[], int)} but restricted to values[lo..hi].
+	 * @param values values to be partially reordered.
+	 * @param lo     first index of the range (inclusive).
+	 * @param hi     last index of the range (inclusive).
+	 * @param k      index of the order statistic, lo &lt;= k &lt;= hi.
+	 * @return the k-th smallest value.
+	 */
+	public static double select(double[] values, int lo, int hi, int k) {
+		if (k < lo || k > hi) {
+			throw new IndexOutOfBoundsException("Index " + k + " out of range [" + lo + ", " + hi + "]");
+		}
+		int depth = 2 * (32 - Integer.numberOfLeadingZeros(hi - lo + 1));
+		while (hi - lo >= INSERTION_THRESHOLD) {
+			if (depth-- == 0) {
+				Arrays.sort(values, lo, hi + 1);
+				return values[k];
+			}
+			int mid = (lo + hi) >>> 1;
+			sort3(values, lo, mid, hi);
+			double pivot = values[mid];
+
+			// Hoare partition around the median-of-three pivot.
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (Double.compare(values[i], pivot) < 0) {
+					i++;
+				}
+				while (Double.compare(values[j], pivot) > 0) {
+					j--;
+				}
+				if (i <= j) {
+					swap(values, i++, j--);
+				}
+			}
+
+			if (k <= j) {
+				hi = j;
+			}
+			else if (k >= i) {
+				lo = i;
+			}
+			else {
+				return values[k];
+			}
+		}
+		insertionSort(values, lo, hi);
+		return values[k];
+	}
+
+	/**
+	 * Return the p-th percentile of the sorted range sorted[from..to),
+	 * interpolating linearly between the closest ranks. This is the definition
+	 * used by every percentile and median of the data sets.
+	 * @param sorted values sorted in ascending order.
+	 * @param from   first index of the range (inclusive).
+	 * @param to     last index of the range (exclusive), greater than from.
+	 * @param p      percentile between 0 and 100.
+	 * @return the value below which p percent of the range falls.
+	 */
+	public static double percentile(double[] sorted, int from, int to, double p) {
+		double position = p / 100 * (to - from - 1);
+		int k = from + (int) position;
+		double fraction = position - (int) position;
+		if (fraction == 0) {
+			return sorted[k];
+		}
+		return interpolate(sorted[k], sorted[k + 1], fraction);
+	}
+
+	/**
+	 * Return the value at a fractional position between two neighbouring
+	 * order statistics.
+	 * @param lower    the order statistic just below the position.
+	 * @param upper    the order statistic just above the position.
+	 * @param fraction distance from lower, between 0 and 1.
+	 * @return the interpolated value.
+	 */
+	static double interpolate(double lower, double upper, double fraction) {
+		if (upper == lower) {
+			return lower;
+		}
+		return lower * (1 - fraction) + upper * fraction;
+	}
+
+	/**
+	 * Return the smallest value after index k. Only meaningful right after
+	 * {@link #select} was called for k, so that value is the (k+1)-th order
+	 * statistic.
+	 */
+	static double minAbove(double[] values, int k) {
+		double min = values[k + 1];
+		for (int i = k + 2; i < values.length; i++) {
+			if (Double.compare(values[i], min) < 0) {
+				min = values[i];
+			}
+		}
+		return min;
+	}
+
+	private static void sort3(double[] values, int a, int b, int c) {
+		if (Double.compare(values[b], values[a]) < 0) {
+			swap(values, a, b);
+		}
+		if (Double.compare(values[c], values[b]) < 0) {
+			swap(values, b, c);
+			if (Double.compare(values[b], values[a]) < 0) {
+				swap(values, a, b);
+			}
+		}
+	}
+
+	private static void insertionSort(double[] values, int lo, int hi) {
+		for (int i = lo + 1; i <= hi; i++) {
+			double value = values[i];
+			int j = i - 1;
+			while (j >= lo && Double.compare(values[j], value) > 0) {
+				values[j + 1] = values[j];
+				j--;
+			}
+			values[j + 1] = value;
+		}
+	}
+
+	private static void swap(double[] values, int i, int j) {
+		double tmp = values[i];
+		values[i] = values[j];
+		values[j] = tmp;
+	}
+}
@@ -0,0 +1,345 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * An on-disk cache of parsed text data sets. The first load of a text file
+ * parses and sorts it as usual and stores a snapshot: the sorted values as a
+ * {@link BinaryDataset} and, next to it, the summary and mode count of the
+ * values with the key of the source. Later loads of the same, unchanged file
+ * map the snapshot instead, so neither parsing nor sorting nor the moments
+ * are done again.
+ * <p>
+ * A snapshot is used only if the path, the size, the modification time and
+ * the CRC32C of the contents of the source all match, and if it was written
+ * with the current format and Summary numerics. Each source has one snapshot,
+ * replaced when the source changes. Once the snapshots take more than the
+ * size limit, the least recently used ones are deleted.
+ * <p>
+ * The cache is off unless the system property statistics.snapshot.dir names
+ * its directory; statistics.snapshot.maxBytes sets the size limit, 1 GB by
+ * default.
+ *
+ */
+public final class SnapshotCache {
+	private static final int MAGIC = 0x534e5031;
+	/** Version of the key file layout. */
+	private static final int FORMAT_VERSION = 1;
+	/** Default limit of the total size of the snapshots. */
+	public static final long DEFAULT_MAX_BYTES = 1L << 30;
+	/** Largest region mapped at once while hashing a source. */
+	private static final long MAP_SIZE = 1L << 30;
+
+	private static final MetricTimer LOAD_TIMER = Metrics.timer("snapshot.load");
+	private static final MetricTimer STORE_TIMER = Metrics.timer("snapshot.store");
+	private static final MetricTimer HASH_TIMER = Metrics.timer("snapshot.hash");
+	private static final MetricCounter HITS = Metrics.counter("snapshot.hits");
+	private static final MetricCounter MISSES = Metrics.counter("snapshot.misses");
+
+	// Null when the cache is off.
+	private final Path directory;
+	private final long maxBytes;
+
+	/**
+	 * Constructor. Keep snapshots in the given directory, created when the
+	 * first snapshot is stored, up to the default size limit.
+	 * @param directory path of the snapshot directory.
+	 */
+	public SnapshotCache(String directory) {
+		this(directory, DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Constructor. Keep snapshots in the given directory, created when the
+	 * first snapshot is stored, up to maxBytes in total.
+	 * @param directory path of the snapshot directory.
+	 * @param maxBytes  limit of the total size of the snapshots.
+	 * @throws IllegalArgumentException if maxBytes is negative.
+	 */
+	public SnapshotCache(String directory, long maxBytes) throws IllegalArgumentException {
+		this(Paths.get(directory), maxBytes);
+	}
+
+	private SnapshotCache(Path directory, long maxBytes) throws IllegalArgumentException {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("The size limit should not be negative, your limit: " + maxBytes);
+		}
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Return a cache in the directory given by the system property
+	 * statistics.snapshot.dir, limited to statistics.snapshot.maxBytes, or a
+	 * cache which is off if no directory is given.
+	 * @return the snapshot cache.
+	 * @throws IllegalArgumentException if the size limit is not a valid number.
+	 */
+	public static SnapshotCache fromSystemProperties() throws IllegalArgumentException {
+		String directory = System.getProperty("statistics.snapshot.dir");
+		long maxBytes = Long.getLong("statistics.snapshot.maxBytes", DEFAULT_MAX_BYTES);
+		return new SnapshotCache(directory == null ? null : Paths.get(directory), maxBytes);
+	}
+
+	/**
+	 * Return true if snapshots are stored and used.
+	 * @return true if the cache has a directory.
+	 */
+	public boolean isEnabled() {
+		return directory != null;
+	}
+
+	/**
+	 * Load a text file with one number per line into the model, from its
+	 * snapshot if the file is unchanged, otherwise by parsing it and storing a
+	 * new snapshot. A snapshot which cannot be written or is larger than the
+	 * size limit is skipped silently. When the cache is off, the file is only
+	 * parsed.
+	 * @param fileName path of the text file.
+	 * @param model    model the data set is loaded into.
+	 * @param threads  maximum number of threads parsing the file.
+	 * @return true if the snapshot was used.
+	 * @throws IOException if the file cannot be read.
+	 * @throws NumberFormatException if a line is not a number.
+	 */
+	public boolean load(String fileName, Statistics model, int threads) throws IOException, NumberFormatException {
+		if (directory == null) {
+			model.readData(NumberFileReader.read(fileName, threads));
+			return false;
+		}
+		Path source = Paths.get(fileName).toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+		long size = attributes.size();
+		long modified = attributes.lastModifiedTime().toMillis();
+		long hash = hash(source);
+		if (loadSnapshot(source, size, modified, hash, model)) {
+			HITS.add(1);
+			return true;
+		}
+
+		MISSES.add(1);
+		model.readData(NumberFileReader.read(fileName, threads));
+		if (model.getCount() == 0) {
+			return false;
+		}
+		try {
+			store(source, size, modified, hash, model);
+		} catch (IOException e) {
+			// The data set is loaded; it will be parsed again next time.
+		}
+		return false;
+	}
+
+	/**
+	 * Load the snapshot of a source into the model if it matches the key.
+	 */
+	private boolean loadSnapshot(Path source, long size, long modified, long hash, Statistics model) {
+		Path meta = metaFile(source);
+		if (!Files.isRegularFile(meta)) {
+			return false;
+		}
+		long start = LOAD_TIMER.start();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(meta)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readInt() != Summary.VERSION
+					|| !in.readUTF().equals(source.toString()) || in.readLong() != size
+					|| in.readLong() != modified || in.readLong() != hash) {
+				return false;
+			}
+			Summary summary = Summary.readFrom(in);
+			int modeCount = in.readInt();
+			BinaryDataset dataset = BinaryDataset.read(valuesFile(source).toString());
+			if (!dataset.isSorted() || dataset.getValues().length != summary.getCount()) {
+				return false;
+			}
+			model.readSnapshot(dataset.getValues(), summary, modeCount);
+			touch(meta);
+			return true;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			LOAD_TIMER.stop(start);
+		}
+	}
+
+	/**
+	 * Sort the loaded data set, compute its summary and mode count, and write
+	 * them as the snapshot of the source. Both files are written under
+	 * temporary names and moved into place, the key file last, so neither a
+	 * half written snapshot nor one being written by another process at the
+	 * same time is ever used.
+	 */
+	private void store(Path source, long size, long modified, long hash, Statistics model) throws IOException {
+		long start = STORE_TIMER.start();
+		try {
+			if (BinaryDataset.HEADER_SIZE + (long) model.getCount() * Double.BYTES > maxBytes) {
+				return;
+			}
+			Files.createDirectories(directory);
+			double[] sorted = model.sortedValues();
+			Summary summary = model.getSummary();
+			int modeCount = model.getModeCount();
+			Path meta = metaFile(source);
+			Files.deleteIfExists(meta);
+			Path values = Files.createTempFile(directory, "snapshot", ".tmp");
+			try {
+				BinaryDataset.write(values.toString(), sorted);
+				move(values, valuesFile(source));
+			} finally {
+				Files.deleteIfExists(values);
+			}
+
+			Path temporary = Files.createTempFile(directory, "snapshot", ".tmp");
+			try {
+				try (OutputStream file = Files.newOutputStream(temporary);
+						DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+					out.writeInt(MAGIC);
+					out.writeInt(FORMAT_VERSION);
+					out.writeInt(Summary.VERSION);
+					out.writeUTF(source.toString());
+					out.writeLong(size);
+					out.writeLong(modified);
+					out.writeLong(hash);
+					summary.writeTo(out);
+					out.writeInt(modeCount);
+				}
+				move(temporary, meta);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+			evict();
+		} finally {
+			STORE_TIMER.stop(start);
+		}
+	}
+
+	/**
+	 * Delete the least recently used snapshots until the snapshots take no
+	 * more than the size limit. A key file is touched whenever its snapshot
+	 * is used, so its modification time orders the snapshots by use.
+	 */
+	private void evict() throws IOException {
+		List<Path> keys = new ArrayList<Path>();
+		long total = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.key")) {
+			for (Path key : files) {
+				keys.add(key);
+				total += sizeOf(key) + sizeOf(valuesOf(key));
+			}
+		}
+		if (total <= maxBytes) {
+			return;
+		}
+		Map<Path, Long> used = new HashMap<Path, Long>();
+		for (Path key : keys) {
+			used.put(key, lastModified(key));
+		}
+		keys.sort(Comparator.comparing(used::get));
+		for (Path key : keys) {
+			if (total <= maxBytes) {
+				break;
+			}
+			long length = sizeOf(key) + sizeOf(valuesOf(key));
+			Files.deleteIfExists(key);
+			Files.deleteIfExists(valuesOf(key));
+			total -= length;
+		}
+	}
+
+	private static void move(Path from, Path to) throws IOException {
+		try {
+			Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void touch(Path file) {
+		try {
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			// Only the eviction order suffers.
+		}
+	}
+
+	private static long sizeOf(Path file) {
+		try {
+			return Files.size(file);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	private static long lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file).toMillis();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Return the CRC32C of the contents of a file, reading it through memory
+	 * mapped regions.
+	 */
+	static long hash(Path file) throws IOException {
+		long start = HASH_TIMER.start();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			CRC32C checksum = new CRC32C();
+			long length = channel.size();
+			long offset = 0;
+			while (offset < length) {
+				long size = Math.min(MAP_SIZE, length - offset);
+				MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+				checksum.update(region);
+				offset += size;
+			}
+			return checksum.getValue();
+		} finally {
+			HASH_TIMER.stop(start);
+		}
+	}
+
+	private Path metaFile(Path source) {
+		return directory.resolve(name(source) + ".key");
+	}
+
+	private Path valuesFile(Path source) {
+		return directory.resolve(name(source) + ".sds");
+	}
+
+	private static Path valuesOf(Path key) {
+		String name = key.getFileName().toString();
+		return key.resolveSibling(name.substring(0, name.length() - ".key".length()) + ".sds");
+	}
+
+	/**
+	 * Return the file name of the snapshot of a source, from a checksum of its
+	 * path. The key file holds the full path, so a collision is only a miss.
+	 */
+	private static String name(Path source) {
+		CRC32C checksum = new CRC32C();
+		checksum.update(source.toString().getBytes(StandardCharsets.UTF_8));
+		return String.format("snapshot-%08x", checksum.getValue());
+	}
+}
@@ -1,6 +1,8 @@
+import java.io.IOException;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.stream.DoubleStream;
 
 /**
  * Represents a descriptive statistics model which reads a random number of data
@@ -8,23 +10,471 @@ import java.util.HashMap;
  *
  */
 public class Statistics {
+	/** Half of the exponent bias, in the exponent field of a double. */
+	private static final long SQRT_MAGIC = 1023L << 51;
+	/** Relative step at which the Babylonian method stops. */
+	private static final double SQRT_EPSILON = 0x1.0p-52;
+	/** Upper bound on Babylonian steps; five suffice from the initial guess. */
+	private static final int SQRT_MAX_STEPS = 8;
+	private static final double SQRT_SCALE_UP = 0x1.0p108;
+	private static final double SQRT_SCALE_DOWN = 0x1.0p-54;
+	
+	// Metrics of the loads, the sort and every measure; see Metrics.
+	private static final MetricTimer READ_LIST_TIMER = Metrics.timer("readData.list");
+	private static final MetricTimer READ_ARRAY_TIMER = Metrics.timer("readData.array");
+	private static final MetricTimer READ_BUFFER_TIMER = Metrics.timer("readData.buffer");
+	private static final MetricTimer READ_BUILDER_TIMER = Metrics.timer("readData.builder");
+	private static final MetricTimer READ_STREAM_TIMER = Metrics.timer("readData.stream");
+	private static final MetricTimer READ_BINARY_TIMER = Metrics.timer("readBinary");
+	private static final MetricTimer ADD_TIMER = Metrics.timer("edit.add");
+	private static final MetricTimer ADD_ALL_TIMER = Metrics.timer("edit.addAll");
+	private static final MetricTimer REMOVE_TIMER = Metrics.timer("edit.remove");
+	private static final MetricTimer SUMMARY_TIMER = Metrics.timer("summary");
+	private static final MetricTimer MIN_TIMER = Metrics.timer("measure.min");
+	private static final MetricTimer MAX_TIMER = Metrics.timer("measure.max");
+	private static final MetricTimer MODE_TIMER = Metrics.timer("measure.mode");
+	private static final MetricTimer MODE_COUNT_TIMER = Metrics.timer("measure.modeCount");
+	private static final MetricTimer MEDIAN_TIMER = Metrics.timer("measure.median");
+	private static final MetricTimer PERCENTILE_TIMER = Metrics.timer("measure.percentile");
+	private static final MetricTimer QUANTILES_TIMER = Metrics.timer("measure.quantiles");
+	private static final MetricTimer MEAN_TIMER = Metrics.timer("measure.mean");
+	private static final MetricTimer HARMONIC_MEAN_TIMER = Metrics.timer("measure.harmonicMean");
+	private static final MetricTimer MAD_TIMER = Metrics.timer("measure.mad");
+	private static final MetricTimer VARIANCE_TIMER = Metrics.timer("measure.variance");
+	private static final MetricTimer SD_TIMER = Metrics.timer("measure.sd");
+	private static final MetricTimer PVARIANCE_TIMER = Metrics.timer("measure.pvariance");
+	private static final MetricTimer PSD_TIMER = Metrics.timer("measure.psd");
+	private static final MetricTimer PRINT_ALL_TIMER = Metrics.timer("printAll");
+	private static final MetricTimer SORT_TIMER = Metrics.timer("sort");
+	private static final MetricCounter VALUES_LOADED = Metrics.counter("values.loaded");
+	private static final MetricCounter VALUES_UNBOXED = Metrics.counter("values.unboxed");
+	
 	private double[] arr;
+	private boolean sorted;
+	private MeasureCache cache;
+	private ParallelExecution execution;
+	private int sketchAccuracy;
+	// Set once the data set is edited in place; arr is then a cached sorted
+	// copy of the tree, rebuilt on demand when stale.
+	private OrderStatisticTree tree;
+	private RunningMoments moments;
+	private boolean stale;
 		
 	/**
 	 * Read dataset from an ArrayList.
 	 * @param dataset given dataset.
 	 */
 	public void readData(ArrayList<Double> dataset) {
-		this.arr = new double[dataset.size()];
-		for (int i = 0; i < dataset.size(); i++) {
-			this.arr[i] = dataset.get(i);
+		long start = READ_LIST_TIMER.start();
+		try {
+			double[] values = new double[dataset.size()];
+			for (int i = 0; i < dataset.size(); i++) {
+				values[i] = dataset.get(i);
+			}
+			VALUES_UNBOXED.add(values.length);
+			load(values);
+		} finally {
+			READ_LIST_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Read dataset from an array of primitive values. The array is copied,
+	 * so later changes to it do not affect the model.
+	 * @param dataset given dataset.
+	 */
+	public void readData(double[] dataset) {
+		long start = READ_ARRAY_TIMER.start();
+		try {
+			load(dataset.clone());
+		} finally {
+			READ_ARRAY_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Read dataset from the remaining values of a DoubleBuffer. The position
+	 * of the buffer is not changed.
+	 * @param dataset given dataset.
+	 */
+	public void readData(DoubleBuffer dataset) {
+		long start = READ_BUFFER_TIMER.start();
+		try {
+			double[] values = new double[dataset.remaining()];
+			dataset.duplicate().get(values);
+			load(values);
+		} finally {
+			READ_BUFFER_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Read dataset collected by a DoubleArrayBuilder.
+	 * @param dataset given dataset.
+	 */
+	public void readData(DoubleArrayBuilder dataset) {
+		long start = READ_BUILDER_TIMER.start();
+		try {
+			load(dataset.toArray());
+		} finally {
+			READ_BUILDER_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Read dataset from a DoubleStream. The stream is consumed.
+	 * @param dataset given dataset.
+	 */
+	public void readData(DoubleStream dataset) {
+		long start = READ_STREAM_TIMER.start();
+		try {
+			load(dataset.toArray());
+		} finally {
+			READ_STREAM_TIMER.stop(start);
 		}
-		
-		Arrays.sort(this.arr);
+	}
+	
+	/**
+	 * Read dataset from a binary data set file. The file is memory mapped and
+	 * its values are copied without parsing. Files marked as sorted are not
+	 * sorted again.
+	 * @param fileName path of the binary data set file.
+	 * @throws IOException if the file cannot be read or is not a valid binary
+	 *         data set.
+	 */
+	public void readBinary(String fileName) throws IOException {
+		long start = READ_BINARY_TIMER.start();
+		try {
+			BinaryDataset dataset = BinaryDataset.read(fileName);
+			load(dataset.getValues(), dataset.isSorted());
+		} finally {
+			READ_BINARY_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Write the data set to a binary data set file. If the data set has been
+	 * sorted, the file is marked as sorted.
+	 * @param fileName path of the file to be written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void writeBinary(String fileName) throws IOException {
+		BinaryDataset.write(fileName, values());
+	}
+	
+	/**
+	 * Take sorted values together with measures computed for them before, as
+	 * stored in a snapshot, so neither the sort nor those measures are done
+	 * again.
+	 * @param values    values sorted ascending, owned by the model from now on.
+	 * @param summary   summary of the values.
+	 * @param modeCount number of modes of the values.
+	 */
+	void readSnapshot(double[] values, Summary summary, int modeCount) {
+		load(values, true);
+		MeasureCache results = getCache();
+		results.summary = summary;
+		results.modeCount = modeCount;
+		results.hasModeCount = true;
+	}
+	
+	/**
+	 * Return the values of the data set, sorting them first if needed.
+	 * @return the values sorted ascending, shared with the model.
+	 */
+	double[] sortedValues() {
+		ensureSorted();
+		return arr;
+	}
+	
+	/**
+	 * Take ownership of the given array as the data set. The values are not
+	 * sorted until a measure needs a fully sorted view.
+	 * @param values values of the data set, must not be shared with the caller.
+	 */
+	private void load(double[] values) {
+		load(values, false);
+	}
+	
+	/**
+	 * Take ownership of the given array as the data set.
+	 * @param values values of the data set, must not be shared with the caller.
+	 * @param sorted true if the values are known to be sorted ascending.
+	 */
+	private void load(double[] values, boolean sorted) {
+		VALUES_LOADED.add(values.length);
+		this.arr = values;
+		this.sorted = sorted;
+		this.cache = null;
+		this.tree = null;
+		this.moments = null;
+		this.stale = false;
 	}
 	
 	public void clear() {
 		this.arr = null;
+		this.sorted = false;
+		this.cache = null;
+		this.tree = null;
+		this.moments = null;
+		this.stale = false;
+	}
+	
+	/**
+	 * Add a value to the data set. The first edit sorts the data set once
+	 * into an order statistic tree; from then on every edit takes O(log n)
+	 * and keeps the order statistics and the moments up to date.
+	 * @param value the value to be added.
+	 */
+	public void add(double value) {
+		long start = ADD_TIMER.start();
+		try {
+			startEditing();
+			tree.add(value);
+			moments.add(value);
+			changed();
+		} finally {
+			ADD_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Add every value of an array to the data set.
+	 * @param values the values to be added.
+	 */
+	public void addAll(double[] values) {
+		long start = ADD_ALL_TIMER.start();
+		try {
+			startEditing();
+			for (double value : values) {
+				tree.add(value);
+				moments.add(value);
+			}
+			changed();
+		} finally {
+			ADD_ALL_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Remove one occurrence of a value from the data set.
+	 * @param value the value to be removed.
+	 * @return true if the value was in the data set.
+	 */
+	public boolean remove(double value) {
+		long start = REMOVE_TIMER.start();
+		try {
+			startEditing();
+			if (!tree.remove(value)) {
+				return false;
+			}
+			moments.remove(value);
+			changed();
+			return true;
+		} finally {
+			REMOVE_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Move the data set into the order statistic tree and the running moments
+	 * if it is not edited yet.
+	 */
+	private void startEditing() {
+		if (tree != null) {
+			return;
+		}
+		if (arr == null) {
+			tree = new OrderStatisticTree();
+			moments = new RunningMoments();
+		}
+		else {
+			ensureSorted();
+			tree = OrderStatisticTree.fromSorted(arr);
+			moments = new RunningMoments(arr);
+		}
+	}
+	
+	/**
+	 * Drop the array and every cached measure after an edit.
+	 */
+	private void changed() {
+		// An empty data set needs no copy and keeps the array based measures
+		// working when every value has been removed.
+		boolean empty = tree.size() == 0;
+		this.arr = empty ? new double[0] : null;
+		this.sorted = empty;
+		this.stale = !empty;
+		this.cache = null;
+	}
+	
+	/**
+	 * Return the values of the data set, copying them out of the order
+	 * statistic tree if the data set was edited since the last copy.
+	 * @return the values of the data set.
+	 */
+	private double[] values() {
+		if (stale) {
+			arr = tree.toArray();
+			sorted = true;
+			stale = false;
+		}
+		return arr;
+	}
+	
+	/**
+	 * Return the running moments of an edited data set, rebuilding them from
+	 * the values when removals may have let rounding drift.
+	 * @return the running moments.
+	 */
+	private RunningMoments getMoments() {
+		if (moments.isStale()) {
+			moments = new RunningMoments(values());
+		}
+		return moments;
+	}
+	
+	/**
+	 * Return true if the order statistics can be read from the tree.
+	 * @return true if the data set is edited and not empty.
+	 */
+	private boolean hasTree() {
+		return tree != null && tree.size() > 0;
+	}
+	
+	/**
+	 * Run the sort and the moment based measures on a ForkJoinPool for large
+	 * data sets. Results do not depend on the number of threads in the pool.
+	 * @param execution parallel execution settings, or null to run every
+	 *                  measure on the calling thread.
+	 */
+	public void setParallelExecution(ParallelExecution execution) {
+		this.execution = execution;
+		this.cache = null;
+	}
+	
+	/**
+	 * Answer the median, percentiles and quantiles from an approximate
+	 * quantile sketch instead of selecting or sorting. The sketch is built in
+	 * one pass on the first query and keeps a few KB whatever the size of the
+	 * data set; its rank error is at most about 4/k of the count.
+	 * @param k accuracy parameter of the sketch (at least 8), or 0 to use
+	 *          exact order statistics again.
+	 * @throws IllegalArgumentException if k is neither 0 nor a valid accuracy.
+	 */
+	public void setApproximateQuantiles(int k) throws IllegalArgumentException {
+		if (k != 0 && k < QuantileSketch.MIN_K) {
+			throw new IllegalArgumentException("The accuracy parameter should be 0 or at least "
+					+ QuantileSketch.MIN_K + ", your k: " + k);
+		}
+		this.sketchAccuracy = k;
+		if (cache != null) {
+			cache.clearQuantiles();
+		}
+	}
+	
+	/**
+	 * Return the results computed so far for the current data set. Changing
+	 * the data set drops the whole cache at once.
+	 * @return the cache of the current data set.
+	 */
+	private MeasureCache getCache() {
+		if (cache == null) {
+			cache = new MeasureCache();
+		}
+		return cache;
+	}
+	
+	/**
+	 * Return the quantile sketch of the data set, building it if needed.
+	 * @return the quantile sketch.
+	 */
+	private QuantileSketch getSketch() {
+		MeasureCache results = getCache();
+		if (results.sketch == null) {
+			QuantileSketch sketch = new QuantileSketch(sketchAccuracy);
+			sketch.acceptAll(values());
+			results.sketch = sketch;
+		}
+		return results.sketch;
+	}
+	
+	/**
+	 * Sort the data set if it is not sorted yet.
+	 */
+	private void ensureSorted() {
+		values();
+		if (!sorted) {
+			long start = SORT_TIMER.start();
+			try {
+				if (execution != null) {
+					execution.sort(arr);
+				}
+				else {
+					Arrays.sort(arr);
+				}
+			} finally {
+				SORT_TIMER.stop(start);
+			}
+			sorted = true;
+		}
+	}
+	
+	/**
+	 * Return the value at the given position of the sorted data set. Uses
+	 * selection instead of a full sort when the data set is not sorted.
+	 * @param k index in the sorted order.
+	 * @return the k-th smallest value.
+	 */
+	private double orderStatistic(int k) {
+		return sorted ? arr[k] : Selection.select(arr, k);
+	}
+	
+	/**
+	 * Return the value at the given fractional position of the sorted data
+	 * set, interpolating linearly between the two neighbouring values.
+	 * @param position position in the sorted order, between 0 and count - 1.
+	 * @return the interpolated value.
+	 */
+	private double interpolate(double position) {
+		int k = (int) position;
+		double fraction = position - k;
+		double lower = orderStatistic(k);
+		if (fraction == 0) {
+			return lower;
+		}
+		double upper = sorted ? arr[k + 1] : Selection.minAbove(arr, k);
+		return Selection.interpolate(lower, upper, fraction);
+	}
+	
+	/**
+	 * Return the moment based measures of the data set. The summary is
+	 * computed on the first call and reused until the data set changes.
+	 * @return the summary of the data set.
+	 */
+	public Summary getSummary() {
+		long start = SUMMARY_TIMER.start();
+		try {
+			MeasureCache results = getCache();
+			if (results.summary == null) {
+				results.summary = new Summary(values(), execution);
+			}
+			return results.summary;
+		} finally {
+			SUMMARY_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Return a mergeable partial summary of the data set. Summaries of
+	 * separate shards can be merged and serialized without the raw values.
+	 * @param k accuracy parameter of the quantile sketch in the summary.
+	 * @return an accumulator which has accepted every value of the data set.
+	 */
+	public StreamingStatistics getPartialSummary(int k) {
+		StreamingStatistics partial = new StreamingStatistics(k);
+		partial.acceptAll(values());
+		return partial;
 	}
 	
 	/**
@@ -32,7 +482,15 @@ public class Statistics {
 	 * @return the smallest number in the data set.
 	 */
 	public double getMin() {
-		return arr[0];
+		long start = MIN_TIMER.start();
+		try {
+			if (hasTree()) {
+				return tree.select(0);
+			}
+			return sorted ? arr[0] : getSummary().getMin();
+		} finally {
+			MIN_TIMER.stop(start);
+		}
 	}
 	
 	/**
@@ -40,7 +498,15 @@ public class Statistics {
 	 * @return the largest number in the data set.
 	 */
 	public double getMax() {
-		return arr[arr.length - 1];
+		long start = MAX_TIMER.start();
+		try {
+			if (hasTree()) {
+				return tree.select(tree.size() - 1);
+			}
+			return sorted ? arr[arr.length - 1] : getSummary().getMax();
+		} finally {
+			MAX_TIMER.stop(start);
+		}
 	}
 	
 	/**
@@ -49,30 +515,59 @@ public class Statistics {
 	 *         in the data set.
 	 */
 	public ArrayList<Double> getMode() {
-		ArrayList<Double> mode = new ArrayList<Double>();
-		HashMap<Double, Integer> hashmap = new HashMap<Double, Integer>();
-		
-		for (double num : this.arr) {
-			if (hashmap.containsKey(num)) {
-				hashmap.put(num, hashmap.get(num) + 1);
-			}
-			else {
-				hashmap.put(num, 1);
-			}
+		double[] modes = getMode(Integer.MAX_VALUE);
+		ArrayList<Double> mode = new ArrayList<Double>(modes.length);
+		for (double num : modes) {
+			mode.add(num);
 		}
-
-		int maxCount = 0;
-		for (int count : hashmap.values()) {
-			maxCount = count > maxCount ? count : maxCount;
+		return mode;
+	}
+	
+	/**
+	 * Return at most limit most frequent number(s) in ascending order. The
+	 * sorted data set is scanned run by run, so no per-value counts are kept,
+	 * and the modes are remembered until the data set changes.
+	 * @param limit maximum number of modes to be returned.
+	 * @return an array which contains the first limit most frequent number(s)
+	 *         in the data set.
+	 * @throws IllegalArgumentException if limit is negative.
+	 */
+	public double[] getMode(int limit) throws IllegalArgumentException {
+		if (limit < 0) {
+			throw new IllegalArgumentException("The limit should not be negative, your limit: " + limit);
 		}
-		
-		for (double key : hashmap.keySet()) {
-			if (hashmap.get(key) == maxCount) {
-				mode.add(key);
+		long start = MODE_TIMER.start();
+		try {
+			MeasureCache results = getCache();
+			double[] modes = results.getModes(limit);
+			if (modes == null) {
+				ensureSorted();
+				modes = Modes.find(this.arr, limit);
+				results.putModes(modes, limit);
 			}
+			return modes;
+		} finally {
+			MODE_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Return how many distinct numbers share the highest frequency.
+	 * @return number of modes in the data set.
+	 */
+	public int getModeCount() {
+		long start = MODE_COUNT_TIMER.start();
+		try {
+			MeasureCache results = getCache();
+			if (!results.hasModeCount) {
+				ensureSorted();
+				results.modeCount = Modes.count(this.arr, Modes.maxFrequency(this.arr));
+				results.hasModeCount = true;
+			}
+			return results.modeCount;
+		} finally {
+			MODE_COUNT_TIMER.stop(start);
 		}
-		
-		return mode;
 	}
 	
 	/**
@@ -81,11 +576,118 @@ public class Statistics {
 	 *         Otherwise, the arithmetic mean of the two middle numbers is returned.
 	 */
 	public double getMedian() {
+		long start = MEDIAN_TIMER.start();
+		try {
+			MeasureCache results = getCache();
+			if (!results.hasMedian) {
+				results.median = computeMedian();
+				results.hasMedian = true;
+			}
+			return results.median;
+		} finally {
+			MEDIAN_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Compute the median, from the sketch, the tree or the array.
+	 */
+	private double computeMedian() {
+		if (sketchAccuracy > 0) {
+			return getSketch().getQuantile(0.5);
+		}
+		if (hasTree()) {
+			int half = tree.size() / 2;
+			if (tree.size() % 2 == 0) {
+				return (tree.select(half) + tree.select(half - 1)) / 2.0;
+			}
+			return tree.select(half);
+		}
+		int half = arr.length / 2;
 		if (arr.length % 2 == 0) {
-			return (arr[arr.length / 2] + arr[arr.length / 2 - 1]) / 2.0;
+			double lower = orderStatistic(half - 1);
+			double upper = sorted ? arr[half] : Selection.minAbove(arr, half - 1);
+			return (upper + lower) / 2.0;
 		}
 		else {
-			return arr[arr.length / 2];
+			return orderStatistic(half);
+		}
+	}
+	
+	/**
+	 * Return the p-th percentile of the data set, interpolating linearly
+	 * between the closest ranks.
+	 * @param p percentile between 0 and 100.
+	 * @return the value below which p percent of the data set falls.
+	 * @throws IllegalArgumentException if p is not between 0 and 100.
+	 */
+	public double getPercentile(double p) throws IllegalArgumentException {
+		long start = PERCENTILE_TIMER.start();
+		try {
+			if (!(p >= 0 && p <= 100)) {
+				throw new IllegalArgumentException("The percentile should be between 0 and 100, your percentile: " + p);
+			}
+			MeasureCache results = getCache();
+			int index = results.findPercentile(p);
+			if (index >= 0) {
+				return results.getPercentile(index);
+			}
+			double value = computePercentile(p);
+			results.putPercentile(p, value);
+			return value;
+		} finally {
+			PERCENTILE_TIMER.stop(start);
+		}
+	}
+	
+	/**
+	 * Compute a percentile, from the sketch, the tree or the array.
+	 */
+	private double computePercentile(double p) {
+		if (sketchAccuracy > 0) {
+			return getSketch().getQuantile(p / 100);
+		}
+		if (hasTree()) {
+			return tree.interpolate(p / 100 * (tree.size() - 1));
+		}
+		return interpolate(p / 100 * (arr.length - 1));
+	}
+	
+	/**
+	 * Return several quantiles of the data set at once. When many quantiles
+	 * are asked for, the data set is sorted once instead of selecting each.
+	 * @param q quantiles between 0 and 1.
+	 * @return an array which contains the quantile for each argument in order.
+	 * @throws IllegalArgumentException if a quantile is not between 0 and 1.
+	 */
+	public double[] getQuantiles(double... q) throws IllegalArgumentException {
+		long start = QUANTILES_TIMER.start();
+		try {
+			for (double quantile : q) {
+				if (!(quantile >= 0 && quantile <= 1)) {
+					throw new IllegalArgumentException("The quantile should be between 0 and 1, your quantile: " + quantile);
+				}
+			}
+			if (sketchAccuracy > 0) {
+				return getSketch().getQuantiles(q);
+			}
+			if (hasTree()) {
+				double[] result = new double[q.length];
+				for (int i = 0; i < q.length; i++) {
+					result[i] = tree.interpolate(q[i] * (tree.size() - 1));
+				}
+				return result;
+			}
+			if (q.length > 32 - Integer.numberOfLeadingZeros(arr.length)) {
+				ensureSorted();
+			}
+			double[] result = new double[q.length];
+			for (int i = 0; i < q.length; i++) {
+				result[i] = interpolate(q[i] * (arr.length - 1));
+			}
+			return result;
+		} finally {
+			QUANTILES_TIMER.stop(start);
 		}
 	}
 	
@@ -95,11 +697,15 @@ public class Statistics {
 	 *         mean of the data set.
 	 */
 	public double getMean() {
-		double total = 0;
-		for (double num : this.arr) {
-			total += num;
+		long start = MEAN_TIMER.start();
+		try {
+			if (tree != null) {
+				return getMoments().getMean();
+			}
+			return getSummary().getMean();
+		} finally {
+			MEAN_TIMER.stop(start);
 		}
-		return total / arr.length;
 	}
 
 	/**
@@ -111,12 +717,16 @@ public class Statistics {
 	 *         data set.
 	 */
 	public double getHarmonicMean() {
-		double sum = 0;
-		for (double number : this.arr) {
-			sum += 1 / number;
+		long start = HARMONIC_MEAN_TIMER.start();
+		try {
+			if (tree != null) {
+				return getMoments().getHarmonicMean();
+			}
+			return getSummary().getHarmonicMean();
+		} finally {
+			HARMONIC_MEAN_TIMER.stop(start);
 		}
-		return this.arr.length / sum;
-	}	
+	}
 	
 	/**
 	 * Return the mean of absolute deviation of the data set.
@@ -124,12 +734,12 @@ public class Statistics {
 	 *         of the data set.
 	 */
 	public double getMAD() {
-		double mean = getMean();
-		double total = 0;
-		for (double num : this.arr) {
-			total += (abs(num - mean));
+		long start = MAD_TIMER.start();
+		try {
+			return getSummary().getMAD();
+		} finally {
+			MAD_TIMER.stop(start);
 		}
-		return total / arr.length;
 	}
 	
 	/**
@@ -139,12 +749,15 @@ public class Statistics {
 	 *         of the data set.
 	 */
 	public double getVariance() {
-		double mean = getMean();
-		double variance = 0;
-		for (double num : this.arr) {
-			variance += ((num - mean) * (num - mean));
+		long start = VARIANCE_TIMER.start();
+		try {
+			if (tree != null) {
+				return getMoments().getVariance();
+			}
+			return getSummary().getVariance();
+		} finally {
+			VARIANCE_TIMER.stop(start);
 		}
-		return variance / (arr.length - 1);
 	}
 	
 	/**
@@ -154,7 +767,15 @@ public class Statistics {
 	 * 			deviation of the data set.
 	 */
 	public double getSD() {
-		return sqrt(getVariance());
+		long start = SD_TIMER.start();
+		try {
+			if (tree != null) {
+				return getMoments().getSD();
+			}
+			return getSummary().getSD();
+		} finally {
+			SD_TIMER.stop(start);
+		}
 	}
 	
 	/**
@@ -163,12 +784,15 @@ public class Statistics {
 	 * @return a real number that is the population variance of the data set.
 	 */
 	public double getPVariance() {
-		double mean = getMean();
-		double variance = 0;
-		for (double num : this.arr) {
-			variance += ((num - mean) * (num - mean));
+		long start = PVARIANCE_TIMER.start();
+		try {
+			if (tree != null) {
+				return getMoments().getPVariance();
+			}
+			return getSummary().getPVariance();
+		} finally {
+			PVARIANCE_TIMER.stop(start);
 		}
-		return variance / arr.length;
 	}
 	
 	/**
@@ -178,7 +802,15 @@ public class Statistics {
 	 *         of the data set.
 	 */
 	public double getPSD() {
-		return sqrt(getPVariance());
+		long start = PSD_TIMER.start();
+		try {
+			if (tree != null) {
+				return getMoments().getPSD();
+			}
+			return getSummary().getPSD();
+		} finally {
+			PSD_TIMER.stop(start);
+		}
 	}
 	
 	
@@ -187,6 +819,9 @@ public class Statistics {
 	 * @return a number that is the count of value in the data set.
 	 */
 	public int getCount() {
+		if (tree != null) {
+			return tree.size();
+		}
 		return this.arr.length;
 	}
 	
@@ -194,84 +829,98 @@ public class Statistics {
 	 * Print all information of the data set.
 	 */
 	public void printAll() {
-		System.out.println("Number of values: " + this.arr.length);
-		System.out.println("Min: " + getMin());
-		System.out.println("Max: " + getMax());
-		ArrayList<Double> mode = getMode();
-		System.out.print("mode: ");
+		long start = PRINT_ALL_TIMER.start();
+		try {
+			Summary summary = getSummary();
+			System.out.println("Number of values: " + summary.getCount());
+			System.out.println("Min: " + getMin());
+			System.out.println("Max: " + getMax());
+			double[] mode = getMode(5);
+			System.out.print("mode: ");
 		
-		for (int i = 0; i < mode.size() && i <= 5; i++) {
-			System.out.print(mode.get(i) + " ");
-		}
+			for (double num : mode) {
+				System.out.print(num + " ");
+			}
 		
-		if (mode.size() > 5) {
-			System.out.println("... and " + (mode.size() - 5) + " more value(s)");
-		}
-		else {
-			System.out.println();
-		}
+			int modeCount = getModeCount();
+			if (modeCount > mode.length) {
+				System.out.println("... and " + (modeCount - mode.length) + " more value(s)");
+			}
+			else {
+				System.out.println();
+			}
 
-		System.out.println("Median: " + getMedian());
-		System.out.println("Mean: " + getMean());
-		System.out.println("Mean Absolute Deviation: " + getMAD());
-		System.out.println("Sample variance: " + getVariance());
-		System.out.println("Sample standard deviation: " + getSD());
-		System.out.println("Population variance: " + getPVariance());
-		System.out.println("Population standard deviation: " + getPSD());
-		System.out.println("Harmonic mean: " + getHarmonicMean());
+			System.out.println("Median: " + getMedian());
+			System.out.println("Mean: " + summary.getMean());
+			System.out.println("Mean Absolute Deviation: " + summary.getMAD());
+			System.out.println("Sample variance: " + summary.getVariance());
+			System.out.println("Sample standard deviation: " + summary.getSD());
+			System.out.println("Population variance: " + summary.getPVariance());
+			System.out.println("Population standard deviation: " + summary.getPSD());
+			System.out.println("Harmonic mean: " + summary.getHarmonicMean());
+		} finally {
+			PRINT_ALL_TIMER.stop(start);
+		}
 	}
 	
 	/**
-	 * Return the absolute value of a double value.
+	 * Return the absolute value of a double value. The sign bit is cleared
+	 * instead of branching on the sign, which the processor cannot predict
+	 * for deviations from the mean.
 	 * @param num that argument whose absolute value is to be determined.
 	 * @return the absolute value of the argument.
 	 */
 	public static double abs(double num) {
-		return num >= 0 ? num : -num;
+		return Double.longBitsToDouble(Double.doubleToRawLongBits(num) & Long.MAX_VALUE);
 	}
 	
 	/**
-	 * Return square root of the given number. Use naive estimate method to make a initial
-	 * guess. Our guess is the biggest integer which perfect square is smaller than the given number. 
-	 * Then apply the initial guess on the Babylonian method.
+	 * Return square root of the given number. The initial guess is taken from
+	 * the exponent bits of the number (halving the exponent), which is within
+	 * a few percent of the answer for any magnitude. Then apply the initial
+	 * guess on the Babylonian method until the relative change falls to one
+	 * unit in the last place, which takes at most a handful of steps.
 	 * 
 	 * @param num a real number.
-	 * @return    the square root of the given number.
+	 * @return    the square root of the given number, NaN if the number is
+	 *            NaN or negative, and the number itself if it is zero or
+	 *            positive infinity.
 	 */
-	public static double sqrt(double num) {	
-		double tmp = 1.0;
-		double guess = 1.0;
-		boolean isLessThanOne = num < 1;
-		
+	public static double sqrt(double num) {
 		// base case
-		if (num == 0 || num == 1) {
+		if (num != num || num < 0) {
+			return Double.NaN;
+		}
+		if (num == 0 || num == Double.POSITIVE_INFINITY) {
 			return num;
 		}
 		
-		if (isLessThanOne) {
-			num = 1 / num;
+		// Subnormal numbers have no usable exponent; scale them into the
+		// normal range first and scale the root back at the end.
+		boolean isSubnormal = num < Double.MIN_NORMAL;
+		if (isSubnormal) {
+			num *= SQRT_SCALE_UP;
 		}
 		
-		// naive guess to get a initial guess number as 
-		// closest to the correct answer as possible.
-		while (guess <= num) {
-			tmp++;
-			guess = tmp * tmp;
-		}
-		tmp -= 1;
-		guess = tmp * tmp;
+		// Halve the biased exponent: the bits of the number shifted right by
+		// one, plus half of the exponent bias, approximate its square root.
+		long bits = Double.doubleToRawLongBits(num);
+		double guess = Double.longBitsToDouble((bits >> 1) + SQRT_MAGIC);
 		
-		// Babylonian method. Accuracy is set to 0.00001
-		double newGuess = (num / guess + guess) / 2;
-		while (abs(newGuess - guess) > 0.00001) {
+		// Babylonian method with relative accuracy of one ulp.
+		for (int i = 0; i < SQRT_MAX_STEPS; i++) {
+			double newGuess = (num / guess + guess) / 2;
+			boolean isConverged = abs(newGuess - guess) <= newGuess * SQRT_EPSILON;
 			guess = newGuess;
-			newGuess = (num / guess + guess) / 2;
+			if (isConverged) {
+				break;
+			}
 		}
 		
-		if (isLessThanOne) {
-			return 1 / newGuess;
+		if (isSubnormal) {
+			return guess * SQRT_SCALE_DOWN;
 		}
 		
-		return newGuess;
+		return guess;
 	}
 }
@@ -0,0 +1,472 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Server mode of the calculator. Serves named data sets over HTTP on the
+ * loopback interface, so several users and programs can share data sets
+ * which are loaded once and kept in memory.
+ * <pre>
+ * java Calculator --serve [--port n] [--max-request-bytes n] [name=file]...
+ *   GET    /datasets               names and counts of the loaded data sets
+ *   GET    /datasets/name          measures of a data set as JSON; choose them
+ *                                  with ?measures=mean,median,p90 (default: all,
+ *                                  with the names of batch mode) and the number
+ *                                  of modes with ?modes=n (default: 5)
+ *   PUT    /datasets/name?file=f   load a file readable by the server
+ *   PUT    /datasets/name          load the numbers in the body, one per line;
+ *                                  a body larger than --max-request-bytes
+ *                                  (default: 64 MB) is refused with 413
+ *   DELETE /datasets/name          drop a data set
+ * </pre>
+ * A loaded data set is sorted and summarized once and then never changes: a
+ * reload replaces it as a whole. Queries only read the shared sorted array
+ * and the precomputed summary, so any number of them run at once without
+ * locks and without copying the data. Requests run on virtual threads when
+ * the JVM has them, otherwise on a fixed pool of platform threads.
+ *
+ */
+public class StatisticsServer {
+	/** Default TCP port. */
+	public static final int DEFAULT_PORT = 8611;
+	/** Most modes kept per data set. */
+	private static final int MAX_MODES = 100;
+	/** Default largest request body, in bytes. */
+	public static final long DEFAULT_MAX_REQUEST_BYTES = 64L << 20;
+	private static final String PREFIX = "/datasets";
+
+	private static final MetricTimer QUERY_TIMER = Metrics.timer("server.query");
+	private static final MetricTimer LOAD_TIMER = Metrics.timer("server.load");
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<String, Dataset> datasets;
+	private final SnapshotCache snapshots;
+	private final long maxRequestBytes;
+
+	/**
+	 * Constructor. Bind the server to a port of the loopback interface. The
+	 * server does not answer until it is started.
+	 * @param port TCP port, or 0 for any free port.
+	 * @throws IOException if the port cannot be bound.
+	 */
+	public StatisticsServer(int port) throws IOException {
+		this(port, DEFAULT_MAX_REQUEST_BYTES);
+	}
+
+	/**
+	 * Constructor. Bind the server to a port of the loopback interface,
+	 * refusing request bodies larger than the given size.
+	 * @param port            TCP port, or 0 for any free port.
+	 * @param maxRequestBytes largest accepted request body, in bytes.
+	 * @throws IOException if the port cannot be bound.
+	 * @throws IllegalArgumentException if maxRequestBytes is not positive.
+	 */
+	public StatisticsServer(int port, long maxRequestBytes) throws IOException, IllegalArgumentException {
+		if (maxRequestBytes <= 0) {
+			throw new IllegalArgumentException("The largest request size should be greater than 0, your size: "
+					+ maxRequestBytes);
+		}
+		this.maxRequestBytes = maxRequestBytes;
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		executor = newExecutor();
+		datasets = new ConcurrentSkipListMap<String, Dataset>();
+		snapshots = SnapshotCache.fromSystemProperties();
+		server.setExecutor(executor);
+		server.createContext(PREFIX, this::handle);
+	}
+
+	/**
+	 * Start the server from command line arguments: --port n,
+	 * --max-request-bytes n and name=file pairs of data sets to be loaded
+	 * before the server starts.
+	 * @param args program arguments following --serve.
+	 * @return the started server.
+	 * @throws IOException if a data set cannot be loaded or the port bound.
+	 * @throws IllegalArgumentException if an argument is not valid.
+	 */
+	public static StatisticsServer serve(String[] args) throws IOException, IllegalArgumentException {
+		int port = DEFAULT_PORT;
+		long maxRequestBytes = DEFAULT_MAX_REQUEST_BYTES;
+		Map<String, String> files = new HashMap<String, String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--port")) {
+				if (++i == args.length) {
+					throw new IllegalArgumentException("Missing value for option --port");
+				}
+				port = Integer.parseInt(args[i]);
+			}
+			else if (args[i].equals("--max-request-bytes")) {
+				if (++i == args.length) {
+					throw new IllegalArgumentException("Missing value for option --max-request-bytes");
+				}
+				maxRequestBytes = Long.parseLong(args[i]);
+			}
+			else {
+				int equals = args[i].indexOf('=');
+				if (equals <= 0) {
+					throw new IllegalArgumentException("The data set should be given as name=file, your data set: "
+							+ args[i]);
+				}
+				files.put(args[i].substring(0, equals), args[i].substring(equals + 1));
+			}
+		}
+
+		StatisticsServer statisticsServer = new StatisticsServer(port, maxRequestBytes);
+		for (Map.Entry<String, String> file : files.entrySet()) {
+			statisticsServer.load(file.getKey(), file.getValue());
+		}
+		statisticsServer.start();
+		System.out.println("Serving " + files.size() + " data set(s) on http://localhost:"
+				+ statisticsServer.getPort() + PREFIX);
+		return statisticsServer;
+	}
+
+	/**
+	 * Start answering requests.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stop the server, letting requests in progress finish for up to a second.
+	 */
+	public void stop() {
+		server.stop(1);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Return the port the server is bound to.
+	 * @return the TCP port.
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Load a file as a named data set, replacing any data set of that name.
+	 * Text files go through the snapshot cache when it is on.
+	 * @param name     name of the data set.
+	 * @param fileName path of a text or binary data set file.
+	 * @return count of value in the data set.
+	 * @throws IOException if the file cannot be read.
+	 * @throws NumberFormatException if a line is not a number.
+	 * @throws IllegalArgumentException if the file holds no value.
+	 */
+	public int load(String name, String fileName) throws IOException, NumberFormatException,
+			IllegalArgumentException {
+		long start = LOAD_TIMER.start();
+		try {
+			Statistics model = new Statistics();
+			if (BinaryDataset.isBinary(fileName)) {
+				model.readBinary(fileName);
+			}
+			else {
+				snapshots.load(fileName, model, Runtime.getRuntime().availableProcessors());
+			}
+			return put(name, model);
+		} finally {
+			LOAD_TIMER.stop(start);
+		}
+	}
+
+	/**
+	 * Load values as a named data set, replacing any data set of that name.
+	 * @param name   name of the data set.
+	 * @param values values of the data set, copied.
+	 * @return count of value in the data set.
+	 * @throws IllegalArgumentException if there is no value.
+	 */
+	public int load(String name, double[] values) throws IllegalArgumentException {
+		long start = LOAD_TIMER.start();
+		try {
+			Statistics model = new Statistics();
+			model.readData(values);
+			return put(name, model);
+		} finally {
+			LOAD_TIMER.stop(start);
+		}
+	}
+
+	/**
+	 * Sort and summarize a loaded model and publish it under the name.
+	 */
+	private int put(String name, Statistics model) throws IllegalArgumentException {
+		if (model.getCount() == 0) {
+			throw new IllegalArgumentException("The data set should not be empty: " + name);
+		}
+		double[] sorted = model.sortedValues();
+		datasets.put(name, new Dataset(sorted, model.getSummary(), Modes.find(sorted, MAX_MODES),
+				model.getModeCount()));
+		return sorted.length;
+	}
+
+	/**
+	 * Return a pool running each request on its own virtual thread. Virtual
+	 * threads need Java 21, so on older JVMs requests share a fixed pool of
+	 * platform threads, twice as many as there are processors so requests
+	 * blocked on a slow client do not hold every processor.
+	 */
+	static ExecutorService newExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(2 * Runtime.getRuntime().availableProcessors(), task -> {
+				Thread thread = new Thread(task, "statistics-server");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String path = exchange.getRequestURI().getPath();
+			// The context matches any path starting with the prefix, such as /datasetsfoo.
+			if (!path.equals(PREFIX) && !path.startsWith(PREFIX + "/")) {
+				respond(exchange, 404, error("Unknown path: " + path));
+				return;
+			}
+			String name = path.length() > PREFIX.length() + 1 ? path.substring(PREFIX.length() + 1) : "";
+			Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+			String method = exchange.getRequestMethod();
+			if (name.isEmpty() && method.equals("GET")) {
+				respond(exchange, 200, list());
+			}
+			else if (name.isEmpty()) {
+				respond(exchange, 405, error("Use GET on " + PREFIX));
+			}
+			else if (method.equals("GET")) {
+				Dataset dataset = datasets.get(name);
+				if (dataset == null) {
+					respond(exchange, 404, error("Unknown data set: " + name));
+				}
+				else {
+					respond(exchange, 200, query(name, dataset, query));
+				}
+			}
+			else if (method.equals("PUT")) {
+				int count = query.containsKey("file") ? load(name, query.get("file"))
+						: load(name, BatchMode.readStream(requestBody(exchange)));
+				respond(exchange, 200, "{\"name\":" + BatchMode.jsonString(name) + ",\"count\":" + count + "}");
+			}
+			else if (method.equals("DELETE")) {
+				respond(exchange, datasets.remove(name) == null ? 404 : 204, null);
+			}
+			else {
+				respond(exchange, 405, error("Unsupported method: " + method));
+			}
+		} catch (RequestTooLargeException e) {
+			respond(exchange, 413, error(e.getMessage()));
+		} catch (IllegalArgumentException e) {
+			respond(exchange, 400, error(e.getMessage()));
+		} catch (IOException e) {
+			respond(exchange, 400, error(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage()));
+		} catch (RuntimeException e) {
+			// The exception text may quote data the client should not see.
+			e.printStackTrace();
+			respond(exchange, 500, error("Internal error."));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Return the request body, failing once more than the largest request
+	 * size has been read, or at once if the declared length is larger.
+	 */
+	private InputStream requestBody(HttpExchange exchange) throws RequestTooLargeException {
+		String length = exchange.getRequestHeaders().getFirst("Content-Length");
+		if (length != null && Long.parseLong(length) > maxRequestBytes) {
+			throw new RequestTooLargeException(maxRequestBytes);
+		}
+		return new FilterInputStream(exchange.getRequestBody()) {
+			private long remaining = maxRequestBytes;
+
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b >= 0) {
+					consume(1);
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] bytes, int offset, int length) throws IOException {
+				int read = super.read(bytes, offset, length);
+				if (read > 0) {
+					consume(read);
+				}
+				return read;
+			}
+
+			private void consume(int bytes) throws RequestTooLargeException {
+				remaining -= bytes;
+				if (remaining < 0) {
+					throw new RequestTooLargeException(maxRequestBytes);
+				}
+			}
+		};
+	}
+
+	private String list() {
+		StringBuilder json = new StringBuilder("{\"datasets\":{");
+		boolean first = true;
+		for (Map.Entry<String, Dataset> dataset : datasets.entrySet()) {
+			json.append(first ? "" : ",").append(BatchMode.jsonString(dataset.getKey())).append(':')
+					.append(dataset.getValue().sorted.length);
+			first = false;
+		}
+		return json.append("}}").toString();
+	}
+
+	/**
+	 * Return the requested measures of a data set as a JSON object.
+	 */
+	private String query(String name, Dataset dataset, Map<String, String> query) throws IllegalArgumentException {
+		long start = QUERY_TIMER.start();
+		try {
+			String[] measures = query.containsKey("measures") ? query.get("measures").split(",")
+					: BatchMode.ALL_MEASURES;
+			int modes = query.containsKey("modes") ? Integer.parseInt(query.get("modes")) : BatchMode.DEFAULT_MODES;
+			StringBuilder json = new StringBuilder("{\"name\":").append(BatchMode.jsonString(name));
+			for (String measure : measures) {
+				BatchMode.checkMeasure(measure);
+				json.append(",\"").append(measure).append("\":");
+				if (measure.equals("count")) {
+					json.append(dataset.sorted.length);
+				}
+				else if (measure.equals("mode")) {
+					json.append('[');
+					for (int i = 0; i < Math.min(modes, dataset.modes.length); i++) {
+						json.append(i > 0 ? "," : "").append(number(dataset.modes[i]));
+					}
+					json.append("],\"mode_count\":").append(dataset.modeCount);
+				}
+				else {
+					json.append(number(dataset.evaluate(measure)));
+				}
+			}
+			return json.append('}').toString();
+		} finally {
+			QUERY_TIMER.stop(start);
+		}
+	}
+
+	private static String error(String message) {
+		return "{\"error\":" + BatchMode.jsonString(message) + "}";
+	}
+
+	/**
+	 * Return a number as JSON, with null for NaN and infinities.
+	 */
+	private static String number(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return "null";
+		}
+		return Double.toString(value);
+	}
+
+	private static Map<String, String> parseQuery(String rawQuery) {
+		Map<String, String> query = new HashMap<String, String>();
+		if (rawQuery == null) {
+			return query;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int equals = pair.indexOf('=');
+			String key = equals < 0 ? pair : pair.substring(0, equals);
+			String value = equals < 0 ? "" : pair.substring(equals + 1);
+			query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return query;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		if (body == null) {
+			exchange.sendResponseHeaders(status, -1);
+			return;
+		}
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * A data set as served: its values sorted ascending and the measures
+	 * computed at load. Nothing in it changes after construction, so it is
+	 * shared by every request without copying or locking.
+	 */
+	private static final class Dataset {
+		final double[] sorted;
+		final Summary summary;
+		final double[] modes;
+		final int modeCount;
+
+		Dataset(double[] sorted, Summary summary, double[] modes, int modeCount) {
+			this.sorted = sorted;
+			this.summary = summary;
+			this.modes = modes;
+			this.modeCount = modeCount;
+		}
+
+		/**
+		 * Return a measure other than the count and the modes, by its batch mode
+		 * name.
+		 */
+		double evaluate(String measure) {
+			switch (measure) {
+			case "min":
+				return sorted[0];
+			case "max":
+				return sorted[sorted.length - 1];
+			case "median":
+				return Selection.percentile(sorted, 0, sorted.length, 50);
+			case "mean":
+				return summary.getMean();
+			case "hmean":
+				return summary.getHarmonicMean();
+			case "mad":
+				return summary.getMAD();
+			case "pvar":
+				return summary.getPVariance();
+			case "psd":
+				return summary.getPSD();
+			case "var":
+				return summary.getVariance();
+			case "sd":
+				return summary.getSD();
+			default:
+				return Selection.percentile(sorted, 0, sorted.length, Double.parseDouble(measure.substring(1)));
+			}
+		}
+	}
+
+	/**
+	 * Thrown when a request body is larger than the server accepts.
+	 */
+	static final class RequestTooLargeException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		RequestTooLargeException(long maxRequestBytes) {
+			super("The request body should be at most " + maxRequestBytes + " bytes.");
+		}
+	}
+}
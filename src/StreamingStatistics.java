@@ -0,0 +1,328 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A descriptive statistics accumulator that reads values one at a time and
+ * never keeps the data set in memory. Running moments are updated with
+ * Welford's method, so the mean and variances stay accurate over unbounded
+ * input in constant memory. Measures that need every value (mode, mean
+ * absolute deviation) are not available here; use {@link Statistics} for
+ * those. The median and percentiles are available approximately when the
+ * accumulator is created with a quantile sketch.
+ * <p>
+ * Accumulators built on separate shards of a data set can be merged, and can
+ * be written to and read from a compact binary form, so partial results can
+ * be combined without moving the raw values.
+ *
+ */
+public class StreamingStatistics implements DoubleConsumer {
+	private static final int MAGIC = 0x53544131;
+
+	private final QuantileSketch sketch;
+	private long count;
+	private double mean;
+	private double m2;
+	private double min;
+	private double max;
+	private double reciprocalSum;
+
+	/**
+	 * Constructor. Create an empty accumulator without a quantile sketch.
+	 */
+	public StreamingStatistics() {
+		this(null);
+	}
+
+	/**
+	 * Constructor. Create an empty accumulator which also keeps a quantile
+	 * sketch with the given accuracy parameter.
+	 * @param k accuracy parameter of the quantile sketch.
+	 */
+	public StreamingStatistics(int k) {
+		this(new QuantileSketch(k));
+	}
+
+	private StreamingStatistics(QuantileSketch sketch) {
+		this.sketch = sketch;
+		this.count = 0;
+		this.mean = 0;
+		this.m2 = 0;
+		this.min = Double.POSITIVE_INFINITY;
+		this.max = Double.NEGATIVE_INFINITY;
+		this.reciprocalSum = 0;
+	}
+
+	/**
+	 * Add a value to the accumulator.
+	 * @param value the value to be added.
+	 */
+	@Override
+	public void accept(double value) {
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+		min = value < min ? value : min;
+		max = value > max ? value : max;
+		reciprocalSum += 1 / value;
+		if (sketch != null) {
+			sketch.accept(value);
+		}
+	}
+
+	/**
+	 * Add all values of an array to the accumulator.
+	 * @param values the values to be added.
+	 */
+	public void acceptAll(double[] values) {
+		for (double value : values) {
+			accept(value);
+		}
+	}
+
+	/**
+	 * Merge another accumulator into this one, as if every value accepted by
+	 * the other had been accepted by this one. Moments are combined exactly
+	 * with the parallel form of Welford's method. The quantile sketch is
+	 * merged only when both accumulators keep one.
+	 * @param other accumulator built from another part of the data.
+	 */
+	public void merge(StreamingStatistics other) {
+		if (other.count == 0) {
+			return;
+		}
+		if (count == 0) {
+			mean = other.mean;
+			m2 = other.m2;
+		}
+		else {
+			long total = count + other.count;
+			double delta = other.mean - mean;
+			mean += delta * other.count / total;
+			m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+		}
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		reciprocalSum += other.reciprocalSum;
+		if (sketch != null && other.sketch != null) {
+			sketch.merge(other.sketch);
+		}
+	}
+
+	/**
+	 * Reset the accumulator to the empty state.
+	 */
+	public void clear() {
+		count = 0;
+		mean = 0;
+		m2 = 0;
+		min = Double.POSITIVE_INFINITY;
+		max = Double.NEGATIVE_INFINITY;
+		reciprocalSum = 0;
+		if (sketch != null) {
+			sketch.clear();
+		}
+	}
+
+	/**
+	 * Return count of value accepted so far.
+	 * @return count of value accepted so far.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Return the smallest number accepted so far.
+	 * @return the smallest number, or NaN if no value was accepted.
+	 */
+	public double getMin() {
+		return count == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * Return the largest number accepted so far.
+	 * @return the largest number, or NaN if no value was accepted.
+	 */
+	public double getMax() {
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * Return arithmetic mean of the values accepted so far.
+	 * @return arithmetic mean, or NaN if no value was accepted.
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * Return the harmonic mean of the values accepted so far.
+	 * @return harmonic mean of the values.
+	 */
+	public double getHarmonicMean() {
+		return count / reciprocalSum;
+	}
+
+	/**
+	 * Return the sample variance of the values accepted so far.
+	 * @return sample variance of the values.
+	 */
+	public double getVariance() {
+		return m2 / (count - 1);
+	}
+
+	/**
+	 * Return the population variance of the values accepted so far.
+	 * @return population variance of the values.
+	 */
+	public double getPVariance() {
+		return m2 / count;
+	}
+
+	/**
+	 * Return the sample standard deviation of the values accepted so far.
+	 * @return sample standard deviation of the values.
+	 */
+	public double getSD() {
+		return Statistics.sqrt(getVariance());
+	}
+
+	/**
+	 * Return the population standard deviation of the values accepted so far.
+	 * @return population standard deviation of the values.
+	 */
+	public double getPSD() {
+		return Statistics.sqrt(getPVariance());
+	}
+
+	/**
+	 * Return the approximate median of the values accepted so far.
+	 * @return the approximate median.
+	 * @throws IllegalStateException if the accumulator keeps no quantile sketch.
+	 */
+	public double getMedian() throws IllegalStateException {
+		return getPercentile(50);
+	}
+
+	/**
+	 * Return the approximate p-th percentile of the values accepted so far.
+	 * @param p percentile between 0 and 100.
+	 * @return the approximate percentile.
+	 * @throws IllegalStateException if the accumulator keeps no quantile sketch.
+	 * @throws IllegalArgumentException if p is not between 0 and 100.
+	 */
+	public double getPercentile(double p) throws IllegalStateException, IllegalArgumentException {
+		if (sketch == null) {
+			throw new IllegalStateException("This accumulator does not keep a quantile sketch.");
+		}
+		if (!(p >= 0 && p <= 100)) {
+			throw new IllegalArgumentException("The percentile should be between 0 and 100, your percentile: " + p);
+		}
+		return sketch.getQuantile(p / 100);
+	}
+
+	/**
+	 * Return the quantile sketch kept by the accumulator.
+	 * @return the quantile sketch, or null if none is kept.
+	 */
+	public QuantileSketch getSketch() {
+		return sketch;
+	}
+
+	/**
+	 * Write the accumulator in a compact binary form.
+	 * @param out destination of the accumulator.
+	 * @throws IOException if the accumulator cannot be written.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeLong(count);
+		out.writeDouble(mean);
+		out.writeDouble(m2);
+		out.writeDouble(min);
+		out.writeDouble(max);
+		out.writeDouble(reciprocalSum);
+		out.writeBoolean(sketch != null);
+		if (sketch != null) {
+			sketch.writeTo(out);
+		}
+	}
+
+	/**
+	 * Read an accumulator written by {@link #writeTo}.
+	 * @param in source of the accumulator.
+	 * @return the accumulator that was written.
+	 * @throws IOException if the accumulator cannot be read or is malformed.
+	 */
+	public static StreamingStatistics readFrom(DataInput in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a serialized StreamingStatistics.");
+		}
+		long count = in.readLong();
+		double mean = in.readDouble();
+		double m2 = in.readDouble();
+		double min = in.readDouble();
+		double max = in.readDouble();
+		double reciprocalSum = in.readDouble();
+		QuantileSketch sketch = in.readBoolean() ? QuantileSketch.readFrom(in) : null;
+
+		StreamingStatistics result = new StreamingStatistics(sketch);
+		result.count = count;
+		result.mean = mean;
+		result.m2 = m2;
+		result.min = min;
+		result.max = max;
+		result.reciprocalSum = reciprocalSum;
+		return result;
+	}
+
+	/**
+	 * Return the accumulator in its compact binary form.
+	 * @return the serialized accumulator.
+	 */
+	public byte[] toByteArray() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			writeTo(new DataOutputStream(bytes));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Read an accumulator from its compact binary form.
+	 * @param bytes the serialized accumulator.
+	 * @return the accumulator that was serialized.
+	 * @throws IOException if the bytes are malformed.
+	 */
+	public static StreamingStatistics fromByteArray(byte[] bytes) throws IOException {
+		return readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	/**
+	 * Print all measures available from the accumulator.
+	 */
+	public void printAll() {
+		System.out.println("Number of values: " + getCount());
+		System.out.println("Min: " + getMin());
+		System.out.println("Max: " + getMax());
+		if (sketch != null) {
+			System.out.println("Median (approximate): " + getMedian());
+		}
+		System.out.println("Mean: " + getMean());
+		System.out.println("Sample variance: " + getVariance());
+		System.out.println("Sample standard deviation: " + getSD());
+		System.out.println("Population variance: " + getPVariance());
+		System.out.println("Population standard deviation: " + getPSD());
+		System.out.println("Harmonic mean: " + getHarmonicMean());
+	}
+}
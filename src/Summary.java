@@ -0,0 +1,400 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Holds the moment based measures of a data set. All measures are computed
+ * together in two passes over the values: the first pass finds count, min,
+ * max, sum and sum of reciprocals, and the second pass accumulates squared and
+ * absolute deviations from the mean. Either pass can be split across a
+ * ForkJoinPool with {@link ParallelExecution}.
+ * <p>
+ * Every sum is compensated: the exact rounding error of each addition is
+ * accumulated next to the sum and added back at the end, so the measures stay
+ * within a few units in the last place of the exact result even for large
+ * data sets with values of very different magnitudes.
+ *
+ */
+public class Summary {
+	private static final int MAGIC = 0x53554d31;
+	/**
+	 * Version of the numerics of the passes. Bump it whenever a change alters
+	 * the results, so summaries stored before are computed again.
+	 */
+	static final int VERSION = 2;
+
+	private final int count;
+	private final double min;
+	private final double max;
+	private final double mean;
+	private final double harmonicMean;
+	private final double mad;
+	private final double sumOfSquares;
+
+	/**
+	 * Constructor. Compute the summary of the given values on the calling
+	 * thread.
+	 * @param values values of the data set.
+	 */
+	public Summary(double[] values) {
+		this(values, null);
+	}
+
+	/**
+	 * Constructor. Compute the summary of the given values, splitting each
+	 * pass across the pool of the given execution settings when the data set
+	 * is large enough.
+	 * @param values    values of the data set.
+	 * @param execution parallel execution settings, or null to run on the
+	 *                  calling thread.
+	 */
+	public Summary(double[] values, ParallelExecution execution) {
+		int n = values.length;
+		double[] first = reduce(values, execution, new FirstPass());
+		double average = FirstPass.sum(first) / n;
+		double[] second = reduce(values, execution, new SecondPass(average));
+
+		this.count = n;
+		this.min = first[2];
+		this.max = first[3];
+		this.mean = average;
+		this.harmonicMean = n / FirstPass.reciprocalSum(first);
+		this.mad = SecondPass.absoluteDeviations(second) / n;
+		this.sumOfSquares = SecondPass.sumOfSquares(second, n);
+	}
+
+	private Summary(int count, double min, double max, double mean, double harmonicMean, double mad,
+			double sumOfSquares) {
+		this.count = count;
+		this.min = min;
+		this.max = max;
+		this.mean = mean;
+		this.harmonicMean = harmonicMean;
+		this.mad = mad;
+		this.sumOfSquares = sumOfSquares;
+	}
+
+	/**
+	 * Write the summary in a compact binary form.
+	 * @param out destination of the summary.
+	 * @throws IOException if the summary cannot be written.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(count);
+		out.writeDouble(min);
+		out.writeDouble(max);
+		out.writeDouble(mean);
+		out.writeDouble(harmonicMean);
+		out.writeDouble(mad);
+		out.writeDouble(sumOfSquares);
+	}
+
+	/**
+	 * Read a summary written by {@link #writeTo}.
+	 * @param in source of the summary.
+	 * @return the summary that was written.
+	 * @throws IOException if the summary cannot be read or is malformed.
+	 */
+	public static Summary readFrom(DataInput in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a serialized Summary.");
+		}
+		return new Summary(in.readInt(), in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(),
+				in.readDouble(), in.readDouble());
+	}
+
+	static double[] reduce(double[] values, ParallelExecution execution, ParallelExecution.Kernel kernel) {
+		if (execution == null) {
+			double[] result = kernel.identity();
+			kernel.accumulate(values, 0, values.length, result);
+			return result;
+		}
+		return execution.reduce(values, kernel);
+	}
+
+	/**
+	 * First pass: sum, sum of reciprocals, min and max. Both sums are
+	 * compensated, with their rounding errors kept in result[4] and
+	 * result[5]; read them with {@link #sum} and {@link #reciprocalSum}.
+	 */
+	static class FirstPass implements ParallelExecution.Kernel {
+		@Override
+		public double[] identity() {
+			return new double[] { 0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, 0 };
+		}
+
+		@Override
+		public void accumulate(double[] values, int from, int to, double[] result) {
+			// Two lanes of each sum, so consecutive additions do not wait on
+			// each other; every addition keeps its exact rounding error (TwoSum).
+			double sum0 = result[0];
+			double error0 = result[4];
+			double sum1 = 0;
+			double error1 = 0;
+			double reciprocal0 = result[1];
+			double reciprocalError0 = result[5];
+			double reciprocal1 = 0;
+			double reciprocalError1 = 0;
+			double low = result[2];
+			double high = result[3];
+			int i = from;
+			for (; i + 1 < to; i += 2) {
+				double a = values[i];
+				double b = values[i + 1];
+				double t = sum0 + a;
+				double v = t - sum0;
+				error0 += (sum0 - (t - v)) + (a - v);
+				sum0 = t;
+				t = sum1 + b;
+				v = t - sum1;
+				error1 += (sum1 - (t - v)) + (b - v);
+				sum1 = t;
+				double ra = 1 / a;
+				double rb = 1 / b;
+				t = reciprocal0 + ra;
+				v = t - reciprocal0;
+				reciprocalError0 += (reciprocal0 - (t - v)) + (ra - v);
+				reciprocal0 = t;
+				t = reciprocal1 + rb;
+				v = t - reciprocal1;
+				reciprocalError1 += (reciprocal1 - (t - v)) + (rb - v);
+				reciprocal1 = t;
+				low = a < low ? a : low;
+				low = b < low ? b : low;
+				high = a > high ? a : high;
+				high = b > high ? b : high;
+			}
+			result[0] = sum0;
+			result[4] = error0 + error1;
+			result[1] = reciprocal0;
+			result[5] = reciprocalError0 + reciprocalError1;
+			add(result, 0, 4, sum1);
+			add(result, 1, 5, reciprocal1);
+			if (i < to) {
+				double num = values[i];
+				add(result, 0, 4, num);
+				add(result, 1, 5, 1 / num);
+				low = num < low ? num : low;
+				high = num > high ? num : high;
+			}
+			result[2] = low;
+			result[3] = high;
+		}
+
+		@Override
+		public void combine(double[] left, double[] right) {
+			add(left, 0, 4, right[0]);
+			left[4] += right[4];
+			add(left, 1, 5, right[1]);
+			left[5] += right[5];
+			left[2] = right[2] < left[2] ? right[2] : left[2];
+			left[3] = right[3] > left[3] ? right[3] : left[3];
+		}
+
+		/**
+		 * Return the compensated sum of a first pass result.
+		 */
+		static double sum(double[] result) {
+			return corrected(result[0], result[4]);
+		}
+
+		/**
+		 * Return the compensated sum of reciprocals of a first pass result.
+		 */
+		static double reciprocalSum(double[] result) {
+			return corrected(result[1], result[5]);
+		}
+	}
+
+	/**
+	 * Second pass: sum of squared and of absolute deviations from the mean,
+	 * and the sum of the deviations themselves, which is 0 but for the
+	 * rounding of the mean and is used to correct the sum of squares. Each
+	 * sum keeps its rounding error as in {@link FirstPass}; read them with
+	 * {@link #sumOfSquares} and {@link #absoluteDeviations}.
+	 */
+	static class SecondPass implements ParallelExecution.Kernel {
+		private final double mean;
+
+		SecondPass(double mean) {
+			this.mean = mean;
+		}
+
+		@Override
+		public double[] identity() {
+			return new double[6];
+		}
+
+		@Override
+		public void accumulate(double[] values, int from, int to, double[] result) {
+			// Squares and absolute deviations are never negative, so their sums
+			// lose little to cancellation; one lane each with TwoSum suffices.
+			double squares = result[0];
+			double squaresError = result[2];
+			double deviation = result[1];
+			double deviationError = result[3];
+			double drift = result[4];
+			double driftError = result[5];
+			for (int i = from; i < to; i++) {
+				double diff = values[i] - mean;
+				double square = diff * diff;
+				double absolute = Statistics.abs(diff);
+				double t = squares + square;
+				double v = t - squares;
+				squaresError += (squares - (t - v)) + (square - v);
+				squares = t;
+				t = deviation + absolute;
+				v = t - deviation;
+				deviationError += (deviation - (t - v)) + (absolute - v);
+				deviation = t;
+				t = drift + diff;
+				v = t - drift;
+				driftError += (drift - (t - v)) + (diff - v);
+				drift = t;
+			}
+			result[0] = squares;
+			result[1] = deviation;
+			result[2] = squaresError;
+			result[3] = deviationError;
+			result[4] = drift;
+			result[5] = driftError;
+		}
+
+		@Override
+		public void combine(double[] left, double[] right) {
+			add(left, 0, 2, right[0]);
+			left[2] += right[2];
+			add(left, 1, 3, right[1]);
+			left[3] += right[3];
+			add(left, 4, 5, right[4]);
+			left[5] += right[5];
+		}
+
+		/**
+		 * Return the sum of squared deviations of a second pass result over n
+		 * values, corrected for the rounding of the mean.
+		 */
+		static double sumOfSquares(double[] result, long n) {
+			double squares = corrected(result[0], result[2]);
+			double drift = corrected(result[4], result[5]);
+			double correction = drift * drift / n;
+			return correction > 0 && correction < squares ? squares - correction : squares;
+		}
+
+		/**
+		 * Return the sum of absolute deviations of a second pass result.
+		 */
+		static double absoluteDeviations(double[] result) {
+			return corrected(result[1], result[3]);
+		}
+	}
+
+	/**
+	 * Add a value to the compensated sum result[sum] with rounding error
+	 * result[error], adding the rounding error of this addition to the error.
+	 */
+	private static void add(double[] result, int sum, int error, double value) {
+		double s = result[sum];
+		double t = s + value;
+		double v = t - s;
+		result[error] += (s - (t - v)) + (value - v);
+		result[sum] = t;
+	}
+
+	/**
+	 * Return a compensated sum. Once the sum has overflowed or met an infinity
+	 * or NaN its error term is meaningless, so the sum is returned as is.
+	 */
+	private static double corrected(double sum, double error) {
+		return Double.isFinite(sum) ? sum + error : sum;
+	}
+
+	/**
+	 * Return count of value in the data set.
+	 * @return count of value in the data set.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Return the smallest number in the data set.
+	 * @return the smallest number in the data set.
+	 */
+	public double getMin() {
+		return min;
+	}
+
+	/**
+	 * Return the largest number in the data set.
+	 * @return the largest number in the data set.
+	 */
+	public double getMax() {
+		return max;
+	}
+
+	/**
+	 * Return arithmetic mean of the data set.
+	 * @return arithmetic mean of the data set.
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Return the harmonic mean of the data set.
+	 * @return harmonic mean of the data set.
+	 */
+	public double getHarmonicMean() {
+		return harmonicMean;
+	}
+
+	/**
+	 * Return the mean of absolute deviation of the data set.
+	 * @return mean of absolute deviation of the data set.
+	 */
+	public double getMAD() {
+		return mad;
+	}
+
+	/**
+	 * Return the sum of squared deviations from the mean.
+	 * @return sum of squared deviations from the mean.
+	 */
+	public double getSumOfSquares() {
+		return sumOfSquares;
+	}
+
+	/**
+	 * Return the sample variance.
+	 * @return sample variance of the data set.
+	 */
+	public double getVariance() {
+		return sumOfSquares / (count - 1);
+	}
+
+	/**
+	 * Return the population variance.
+	 * @return population variance of the data set.
+	 */
+	public double getPVariance() {
+		return sumOfSquares / count;
+	}
+
+	/**
+	 * Return the sample standard deviation.
+	 * @return sample standard deviation of the data set.
+	 */
+	public double getSD() {
+		return Statistics.sqrt(getVariance());
+	}
+
+	/**
+	 * Return the population standard deviation.
+	 * @return population standard deviation of the data set.
+	 */
+	public double getPSD() {
+		return Statistics.sqrt(getPVariance());
+	}
+}
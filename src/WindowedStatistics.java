@@ -0,0 +1,362 @@
+import java.time.Duration;
+
+/**
+ * Descriptive statistics over a sliding window of a continuous feed: the last
+ * N values, the values of the last T of time, or both. Every arrival updates
+ * the measures incrementally instead of reloading the window:
+ * <ul>
+ * <li>mean and variances use Welford's method in both directions, O(1) per
+ *     value, and are recomputed from the window once per window length of
+ *     removals so rounding does not drift;</li>
+ * <li>min and max come from monotonic deques, O(1) amortized per value;</li>
+ * <li>median and percentiles come from an {@link OrderStatisticTree},
+ *     O(log n) per value.</li>
+ * </ul>
+ *
+ */
+public class WindowedStatistics {
+	private final int maxCount;
+	private final long maxAge;
+
+	// Ring buffer holding the window, oldest value at head.
+	private double[] values;
+	private long[] times;
+	private int head;
+	private int size;
+	private long firstSequence;
+
+	// Monotonic deques of sequence numbers: values increase from the front of
+	// minimums and decrease from the front of maximums.
+	private final SequenceDeque minimums;
+	private final SequenceDeque maximums;
+
+	private final OrderStatisticTree order;
+
+	private double mean;
+	private double m2;
+	private long removalsSinceRecompute;
+
+	/**
+	 * Constructor. Keep the last maxCount values.
+	 * @param maxCount number of values in the window.
+	 * @throws IllegalArgumentException if maxCount is not positive.
+	 */
+	public WindowedStatistics(int maxCount) throws IllegalArgumentException {
+		this(maxCount, null);
+	}
+
+	/**
+	 * Constructor. Keep the values that arrived within maxAge.
+	 * @param maxAge length of the window in time.
+	 * @throws IllegalArgumentException if maxAge is not positive.
+	 */
+	public WindowedStatistics(Duration maxAge) throws IllegalArgumentException {
+		this(Integer.MAX_VALUE, maxAge);
+	}
+
+	/**
+	 * Constructor. Keep at most maxCount values which arrived within maxAge.
+	 * @param maxCount number of values in the window.
+	 * @param maxAge   length of the window in time, or null for no time limit.
+	 * @throws IllegalArgumentException if maxCount or maxAge is not positive.
+	 */
+	public WindowedStatistics(int maxCount, Duration maxAge) throws IllegalArgumentException {
+		if (maxCount <= 0) {
+			throw new IllegalArgumentException("The window size should be greater than 0, your size: " + maxCount);
+		}
+		if (maxAge != null && (maxAge.isNegative() || maxAge.isZero())) {
+			throw new IllegalArgumentException("The window length should be positive, your length: " + maxAge);
+		}
+		this.maxCount = maxCount;
+		this.maxAge = maxAge == null ? 0 : maxAge.toNanos();
+		int capacity = Math.min(maxCount, 1024);
+		this.values = new double[capacity];
+		this.times = new long[capacity];
+		this.minimums = new SequenceDeque();
+		this.maximums = new SequenceDeque();
+		this.order = new OrderStatisticTree(capacity);
+		clear();
+	}
+
+	/**
+	 * Add a value which arrives now.
+	 * @param value the value to be added.
+	 */
+	public void accept(double value) {
+		accept(value, System.nanoTime());
+	}
+
+	/**
+	 * Add a value with an explicit arrival time. Times must not go backwards.
+	 * @param value the value to be added.
+	 * @param nanos arrival time in nanoseconds, on the System.nanoTime scale.
+	 */
+	public void accept(double value, long nanos) {
+		if (size == values.length) {
+			grow();
+		}
+		int tail = (head + size) % values.length;
+		values[tail] = value;
+		times[tail] = nanos;
+		long sequence = firstSequence + size;
+		size++;
+
+		double delta = value - mean;
+		mean += delta / size;
+		m2 += delta * (value - mean);
+
+		while (!minimums.isEmpty() && Double.compare(valueAt(minimums.peekLast()), value) > 0) {
+			minimums.pollLast();
+		}
+		minimums.addLast(sequence);
+		while (!maximums.isEmpty() && Double.compare(valueAt(maximums.peekLast()), value) < 0) {
+			maximums.pollLast();
+		}
+		maximums.addLast(sequence);
+
+		order.add(value);
+		expire(nanos);
+	}
+
+	/**
+	 * Drop the values which are too old at the given time, without adding a
+	 * value. Useful before reading the measures of a feed that went quiet.
+	 * @param nanos current time in nanoseconds, on the System.nanoTime scale.
+	 */
+	public void expire(long nanos) {
+		while (size > maxCount || (size > 0 && maxAge > 0 && nanos - times[head] >= maxAge)) {
+			evict();
+		}
+	}
+
+	/**
+	 * Remove every value from the window.
+	 */
+	public void clear() {
+		head = 0;
+		size = 0;
+		firstSequence = 0;
+		minimums.clear();
+		maximums.clear();
+		order.clear();
+		mean = 0;
+		m2 = 0;
+		removalsSinceRecompute = 0;
+	}
+
+	/**
+	 * Return count of value in the window.
+	 * @return count of value in the window.
+	 */
+	public int getCount() {
+		return size;
+	}
+
+	/**
+	 * Return the smallest number in the window.
+	 * @return the smallest number, or NaN if the window is empty.
+	 */
+	public double getMin() {
+		return size == 0 ? Double.NaN : valueAt(minimums.peekFirst());
+	}
+
+	/**
+	 * Return the largest number in the window.
+	 * @return the largest number, or NaN if the window is empty.
+	 */
+	public double getMax() {
+		return size == 0 ? Double.NaN : valueAt(maximums.peekFirst());
+	}
+
+	/**
+	 * Return arithmetic mean of the window.
+	 * @return arithmetic mean, or NaN if the window is empty.
+	 */
+	public double getMean() {
+		return size == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * Return the sample variance of the window.
+	 * @return sample variance of the window.
+	 */
+	public double getVariance() {
+		return m2 / (size - 1);
+	}
+
+	/**
+	 * Return the population variance of the window.
+	 * @return population variance of the window.
+	 */
+	public double getPVariance() {
+		return m2 / size;
+	}
+
+	/**
+	 * Return the sample standard deviation of the window.
+	 * @return sample standard deviation of the window.
+	 */
+	public double getSD() {
+		return Statistics.sqrt(getVariance());
+	}
+
+	/**
+	 * Return the population standard deviation of the window.
+	 * @return population standard deviation of the window.
+	 */
+	public double getPSD() {
+		return Statistics.sqrt(getPVariance());
+	}
+
+	/**
+	 * Return the median of the window.
+	 * @return the middle number of the window if there are odd number of
+	 *         data. Otherwise, the arithmetic mean of the two middle numbers,
+	 *         or NaN if the window is empty.
+	 */
+	public double getMedian() {
+		if (size == 0) {
+			return Double.NaN;
+		}
+		int half = size / 2;
+		if (size % 2 == 0) {
+			return (order.select(half) + order.select(half - 1)) / 2.0;
+		}
+		return order.select(half);
+	}
+
+	/**
+	 * Return the p-th percentile of the window.
+	 * @param p percentile between 0 and 100.
+	 * @return the value below which p percent of the window falls, or NaN if
+	 *         the window is empty.
+	 * @throws IllegalArgumentException if p is not between 0 and 100.
+	 */
+	public double getPercentile(double p) throws IllegalArgumentException {
+		if (!(p >= 0 && p <= 100)) {
+			throw new IllegalArgumentException("The percentile should be between 0 and 100, your percentile: " + p);
+		}
+		return size == 0 ? Double.NaN : order.interpolate(p / 100 * (size - 1));
+	}
+
+	/**
+	 * Remove the oldest value from every structure.
+	 */
+	private void evict() {
+		double value = values[head];
+		if (minimums.peekFirst() == firstSequence) {
+			minimums.pollFirst();
+		}
+		if (maximums.peekFirst() == firstSequence) {
+			maximums.pollFirst();
+		}
+		order.remove(value);
+		head = (head + 1) % values.length;
+		size--;
+		firstSequence++;
+
+		if (size == 0) {
+			mean = 0;
+			m2 = 0;
+		}
+		else if (size == 1) {
+			mean = values[head];
+			m2 = 0;
+		}
+		else if (++removalsSinceRecompute >= size) {
+			recompute();
+		}
+		else {
+			double delta = value - mean;
+			mean -= delta / size;
+			m2 -= delta * (value - mean);
+		}
+	}
+
+	/**
+	 * Recompute mean and M2 from the window to discard accumulated rounding.
+	 */
+	private void recompute() {
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += values[(head + i) % values.length];
+		}
+		double average = total / size;
+		double squares = 0;
+		for (int i = 0; i < size; i++) {
+			double diff = values[(head + i) % values.length] - average;
+			squares += diff * diff;
+		}
+		mean = average;
+		m2 = squares;
+		removalsSinceRecompute = 0;
+	}
+
+	private double valueAt(long sequence) {
+		return values[(int) ((head + (sequence - firstSequence)) % values.length)];
+	}
+
+	private void grow() {
+		int capacity = (int) Math.min((long) maxCount, values.length * 2L);
+		if (capacity <= values.length) {
+			capacity = values.length + 1;
+		}
+		double[] newValues = new double[capacity];
+		long[] newTimes = new long[capacity];
+		for (int i = 0; i < size; i++) {
+			newValues[i] = values[(head + i) % values.length];
+			newTimes[i] = times[(head + i) % values.length];
+		}
+		values = newValues;
+		times = newTimes;
+		head = 0;
+	}
+
+	/**
+	 * A double-ended queue of sequence numbers in a growable ring of longs.
+	 */
+	private static class SequenceDeque {
+		private long[] items = new long[16];
+		private int first;
+		private int count;
+
+		boolean isEmpty() {
+			return count == 0;
+		}
+
+		void clear() {
+			first = 0;
+			count = 0;
+		}
+
+		long peekFirst() {
+			return items[first];
+		}
+
+		long peekLast() {
+			return items[(first + count - 1) % items.length];
+		}
+
+		void pollFirst() {
+			first = (first + 1) % items.length;
+			count--;
+		}
+
+		void pollLast() {
+			count--;
+		}
+
+		void addLast(long sequence) {
+			if (count == items.length) {
+				long[] larger = new long[items.length * 2];
+				for (int i = 0; i < count; i++) {
+					larger[i] = items[(first + i) % items.length];
+				}
+				items = larger;
+				first = 0;
+			}
+			items[(first + count) % items.length] = sequence;
+			count++;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * <h1>Batch Mode Test</h1>
+ * This class provides test cases for the BatchMode Class.
+ * Records must come out in input order whatever the number of threads.
+ */
+
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BatchModeTest {
+
+    @Test
+    public void jsonLinesInInputOrder() throws IOException {
+        System.out.println("\nExecuting test case for batch mode");
+        File first = write("1\n2\n2\n5\n");
+        File second = write("3\n4\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchMode batch = new BatchMode(new String[] { "--measures", "count,mean,mode,p50", "--threads", "2",
+                first.getPath(), second.getPath() });
+        int status = batch.run(new ByteArrayInputStream(new byte[0]), new PrintStream(out, true));
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(0, status);
+        assertEquals(2, lines.length);
+        assertEquals(true, lines[0].startsWith("{\"file\":\"" + first.getPath()
+                + "\",\"count\":4,\"mean\":2.5,\"mode\":[2.0],\"mode_count\":1,\"p50\":2.0,\"load_ms\":"));
+        assertEquals(true, lines[1].startsWith("{\"file\":\"" + second.getPath()
+                + "\",\"count\":2,\"mean\":3.5,\"mode\":[3.0,4.0],\"mode_count\":2,\"p50\":3.5,"));
+    }
+
+    @Test
+    public void csvFromStandardInput() throws IOException {
+        System.out.println("\nExecuting test case for batch mode with CSV and stdin");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchMode batch = new BatchMode(new String[] { "--format", "csv", "--measures", "min,max,mode",
+                "--modes", "1" });
+        int status = batch.run(new ByteArrayInputStream("7\n-1\n".getBytes()), new PrintStream(out, true));
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(0, status);
+        assertEquals("file,min,max,mode,mode_count,load_ms,measure_ms,error", lines[0]);
+        assertEquals(true, lines[1].startsWith("-,-1.0,7.0,-1.0,2,"));
+        assertThrows(IllegalArgumentException.class, () -> new BatchMode(new String[] { "--modes", "-1" }));
+    }
+
+    @Test
+    public void unmatchedGlobFails() throws IOException {
+        System.out.println("\nExecuting test case for batch mode with unmatched globs");
+        File file = write("1\n3\n");
+        String empty = file.getParent() + "/*.no-such-extension";
+        String missing = file.getParent() + "/no-such-directory/*.txt";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchMode batch = new BatchMode(new String[] { "--measures", "count", empty, file.getPath(), missing });
+        int status = batch.run(new ByteArrayInputStream(new byte[0]), new PrintStream(out, true));
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(1, status);
+        assertEquals(3, lines.length);
+        assertEquals("{\"file\":\"" + empty + "\",\"error\":\"No file matches the pattern.\"}", lines[0]);
+        assertEquals(true, lines[1].startsWith("{\"file\":\"" + file.getPath() + "\",\"count\":2,"));
+        assertEquals("{\"file\":\"" + missing + "\",\"error\":\"No file matches the pattern.\"}", lines[2]);
+    }
+
+    private static File write(String text) throws IOException {
+        File file = File.createTempFile("batch", ".txt");
+        file.deleteOnExit();
+        FileWriter writer = new FileWriter(file);
+        writer.write(text);
+        writer.close();
+        return file;
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * <h1>Binary Dataset Test</h1>
+ * This class provides test cases for the BinaryDataset Class.
+ * A file must read back exactly or be rejected.
+ */
+
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryDatasetTest {
+    private static final double[] VALUES = {3.5, -1, 0.0, -0.0, 1e300, Double.NaN, 7};
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        System.out.println("\nExecuting test case for binary data set round trip");
+        File file = temporaryFile();
+        BinaryDataset.write(file.getPath(), VALUES);
+        assertEquals(true, BinaryDataset.isBinary(file.getPath()));
+        assertEquals(48 + 8 * VALUES.length, file.length());
+
+        BinaryDataset dataset = BinaryDataset.read(file.getPath());
+        assertArrayEquals(VALUES, dataset.getValues());
+        assertEquals(false, dataset.isSorted());
+        assertEquals(-1, dataset.getMin());
+        assertEquals(1e300, dataset.getMax());
+
+        OffHeapDoubleArray offHeap = new OffHeapDoubleArray();
+        offHeap.accept(42);
+        assertEquals(false, BinaryDataset.readInto(file.getPath(), offHeap));
+        assertEquals(VALUES.length + 1, offHeap.size());
+        assertEquals(42, offHeap.get(0));
+        for (int i = 0; i < VALUES.length; i++) {
+            assertEquals(VALUES[i], offHeap.get(i + 1));
+        }
+
+        BinaryDataset.write(file.getPath(), new double[0]);
+        assertEquals(0, BinaryDataset.read(file.getPath()).getValues().length);
+    }
+
+    @Test
+    public void rejectsDamagedFiles() throws IOException {
+        System.out.println("\nExecuting test case for damaged binary data sets");
+        File file = temporaryFile();
+        BinaryDataset.write(file.getPath(), VALUES);
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(48 + 8 * 2 + 3);
+            raw.write(raw.read() ^ 1);
+        }
+        IOException corrupted = assertThrows(IOException.class, () -> BinaryDataset.read(file.getPath()));
+        assertTrue(corrupted.getMessage().contains("checksum"));
+        assertThrows(IOException.class, () -> BinaryDataset.readInto(file.getPath(), new OffHeapDoubleArray()));
+
+        BinaryDataset.write(file.getPath(), VALUES);
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(file.length() - 4);
+        }
+        IOException truncated = assertThrows(IOException.class, () -> BinaryDataset.read(file.getPath()));
+        assertTrue(truncated.getMessage().contains("truncated"));
+        assertThrows(IOException.class, () -> BinaryDataset.readInto(file.getPath(), new OffHeapDoubleArray()));
+
+        writeText(file, "1\n2\n3\n");
+        assertEquals(false, BinaryDataset.isBinary(file.getPath()));
+        assertThrows(IOException.class, () -> BinaryDataset.read(file.getPath()));
+    }
+
+    @Test
+    public void sortedFlag() throws IOException {
+        System.out.println("\nExecuting test case for the sorted flag of binary data sets");
+        File file = temporaryFile();
+        BinaryDataset.write(file.getPath(), new double[] {1, 2, 2, 5, 9});
+        assertEquals(true, BinaryDataset.read(file.getPath()).isSorted());
+        assertEquals(true, BinaryDataset.readInto(file.getPath(), new OffHeapDoubleArray()));
+
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        Statistics statistics = new Statistics();
+        statistics.readBinary(file.getPath());
+        assertEquals(2, statistics.getMode(1)[0]);
+        assertEquals(0, Metrics.timer("sort").getCount());
+
+        BinaryDataset.write(file.getPath(), new double[] {9, 2, 5, 2, 1});
+        statistics.readBinary(file.getPath());
+        assertEquals(2, statistics.getMode(1)[0]);
+        assertEquals(1, Metrics.timer("sort").getCount());
+
+        File copy = temporaryFile();
+        statistics.writeBinary(copy.getPath());
+        assertEquals(true, BinaryDataset.read(copy.getPath()).isSorted());
+    }
+
+    @Test
+    public void calculatorDetectsBinaryFiles() throws IOException {
+        System.out.println("\nExecuting test case for binary file detection in the calculator");
+        File binary = temporaryFile();
+        BinaryDataset.write(binary.getPath(), VALUES);
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        assertEquals(true, loadFromFile(binary));
+        assertEquals(1, Metrics.timer("readBinary").getCount());
+
+        // A damaged binary file is reported instead of being parsed as text.
+        try (RandomAccessFile raw = new RandomAccessFile(binary, "rw")) {
+            raw.setLength(binary.length() - 8);
+        }
+        assertEquals(false, loadFromFile(binary));
+        assertEquals(2, Metrics.timer("readBinary").getCount());
+    }
+
+    private static boolean loadFromFile(File file) {
+        InputStream in = System.in;
+        System.setIn(new ByteArrayInputStream((file.getPath() + "\n").getBytes(StandardCharsets.UTF_8)));
+        try {
+            Calculator calculator = new Calculator();
+            try {
+                return calculator.loadFromFile();
+            } finally {
+                calculator.close();
+            }
+        } finally {
+            System.setIn(in);
+        }
+    }
+
+    private static File temporaryFile() throws IOException {
+        File file = File.createTempFile("dataset", ".sds");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static void writeText(File file, String text) throws IOException {
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(text);
+        }
+    }
+}
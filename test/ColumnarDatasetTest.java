@@ -0,0 +1,69 @@
+/**
+ * <h1>Columnar Dataset Test</h1>
+ * This class provides test cases for the ColumnarDataset Class.
+ * Every column must give the same measures as loading it on its own.
+ */
+
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ColumnarDatasetTest {
+
+    @Test
+    public void readColumns() throws IOException {
+        System.out.println("\nExecuting test case for reading CSV columns");
+        File file = write("id,\"price, usd\",qty\r\na,1.5,3\r\nb,,4\r\n\r\nc,\"-2\",5\r\n");
+        ColumnarDataset dataset = ColumnarDataset.read(file.getPath(), "qty", "price, usd");
+        assertEquals(2, dataset.getColumnCount());
+        assertEquals(3, dataset.getRowCount());
+        assertEquals(0, dataset.getColumnIndex("qty"));
+        assertEquals(-1, dataset.getColumnIndex("id"));
+        assertEquals(3, dataset.getColumn(0).length);
+        assertEquals(5, dataset.getColumn(0)[2]);
+        assertEquals(2, dataset.getColumn(1).length);
+        assertEquals(-2, dataset.getColumn(1)[1]);
+
+        assertThrows(NumberFormatException.class, () -> ColumnarDataset.read(file.getPath()));
+        assertThrows(IllegalArgumentException.class, () -> ColumnarDataset.read(file.getPath(), "total"));
+        assertThrows(IllegalArgumentException.class, () -> ColumnarDataset.read(file.getPath(), "qty", "qty"));
+    }
+
+    @Test
+    public void measureInParallel() throws IOException, InterruptedException {
+        System.out.println("\nExecuting test case for measuring CSV columns in parallel");
+        StringBuilder text = new StringBuilder("x,y,z\n");
+        for (int i = 0; i < 1000; i++) {
+            text.append(i % 7).append(',').append(i * 0.5).append(',').append(1000 - i).append('\n');
+        }
+        ColumnarDataset dataset = ColumnarDataset.read(write(text.toString()).getPath());
+        Statistics[] models = dataset.measure(2);
+        assertEquals(3, models.length);
+        for (int i = 0; i < models.length; i++) {
+            Statistics single = new Statistics();
+            single.readData(dataset.getColumn(i));
+            assertEquals(single.getCount(), models[i].getCount());
+            assertEquals(single.getMean(), models[i].getMean());
+            assertEquals(single.getSD(), models[i].getSD());
+            assertEquals(single.getMedian(), models[i].getMedian());
+            assertEquals(single.getMin(), models[i].getMin());
+            assertEquals(single.getMax(), models[i].getMax());
+            assertEquals(single.getModeCount(), models[i].getModeCount());
+        }
+    }
+
+    private static File write(String text) throws IOException {
+        File file = File.createTempFile("columns", ".csv");
+        file.deleteOnExit();
+        FileWriter writer = new FileWriter(file);
+        writer.write(text);
+        writer.close();
+        return file;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * <h1>Data Generator Test</h1>
+ * This class provides test cases for the DataGenerator Class.
+ * A seed must give the same file whatever the number of threads.
+ */
+
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DataGeneratorTest {
+    // More than two chunks, so several streams are split from the root.
+    private static final int COUNT = 70000;
+
+    @Test
+    public void seededFilesAreReproducible() throws IOException {
+        System.out.println("\nExecuting test case for seeded generated files");
+        File single = temporaryFile(".txt");
+        File parallel = temporaryFile(".txt");
+        new DataGenerator(42).generateDouble(-5, 5, COUNT, single.getPath(), DoubleFormatter.FULL_PRECISION, 1);
+        new DataGenerator(42).generateDouble(-5, 5, COUNT, parallel.getPath(), DoubleFormatter.FULL_PRECISION, 3);
+        byte[] bytes = Files.readAllBytes(single.toPath());
+        assertArrayEquals(bytes, Files.readAllBytes(parallel.toPath()));
+
+        double[] values = NumberFileReader.read(single.getPath());
+        assertEquals(COUNT, values.length);
+        for (double value : values) {
+            assertTrue(value >= -5 && value < 5);
+        }
+
+        File binary = temporaryFile(".sds");
+        new DataGenerator(42).generateBinary(-5, 5, COUNT, binary.getPath());
+        assertArrayEquals(values, BinaryDataset.read(binary.getPath()).getValues());
+
+        File other = temporaryFile(".txt");
+        new DataGenerator(43).generateDouble(-5, 5, COUNT, other.getPath(), DoubleFormatter.FULL_PRECISION, 1);
+        assertFalse(Arrays.equals(bytes, Files.readAllBytes(other.toPath())));
+    }
+
+    @Test
+    public void fixedDecimals() throws IOException {
+        System.out.println("\nExecuting test case for generated files with decimals");
+        File single = temporaryFile(".txt");
+        File parallel = temporaryFile(".txt");
+        new DataGenerator(7).generateDouble(0, 1000, COUNT, single.getPath(), 3, 1);
+        new DataGenerator(7).generateDouble(0, 1000, COUNT, parallel.getPath(), 3, 4);
+        assertArrayEquals(Files.readAllBytes(single.toPath()), Files.readAllBytes(parallel.toPath()));
+        for (String line : Files.readAllLines(single.toPath())) {
+            assertEquals(3, line.length() - line.indexOf('.') - 1);
+        }
+    }
+
+    private static File temporaryFile(String suffix) throws IOException {
+        File file = File.createTempFile("generated", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+}
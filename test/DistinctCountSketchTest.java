@@ -0,0 +1,83 @@
+/**
+ * <h1>Distinct Count Sketch Test</h1>
+ * This class provides test cases for the DistinctCountSketch Class.
+ * Estimates must stay within a few standard errors of the exact count.
+ */
+
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DistinctCountSketchTest {
+
+    @Test
+    public void estimate() {
+        System.out.println("\nExecuting test case for the distinct count estimate");
+        DistinctCountSketch sketch = new DistinctCountSketch();
+        assertEquals(0, sketch.getEstimate());
+        for (int i = 0; i < 100; i++) {
+            sketch.accept(7);
+        }
+        assertEquals(1, sketch.getEstimate());
+        for (int repeat = 0; repeat < 3; repeat++) {
+            for (int i = 0; i < 100000; i++) {
+                sketch.accept(i * 0.5);
+            }
+        }
+        assertTrue(Math.abs(sketch.getEstimate() - 100000) < 100000 * 0.03);
+        sketch.clear();
+        assertEquals(0, sketch.getEstimate());
+    }
+
+    @Test
+    public void estimateAboveLinearCounting() {
+        System.out.println("\nExecuting test case for the distinct count estimate just above 2.5 * 2^p");
+        // The raw estimate used above 2.5 * 2^p overestimates there by about 2.4%.
+        int count = 41000;
+        int trials = 20;
+        double sum = 0;
+        for (int seed = 0; seed < trials; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            DistinctCountSketch sketch = new DistinctCountSketch(14);
+            for (int i = 0; i < count; i++) {
+                sketch.accept(random.nextDouble());
+            }
+            double error = (sketch.getEstimate() - (double) count) / count;
+            assertTrue(Math.abs(error) < 4 * sketch.getStandardError(), "Error of seed " + seed + ": " + error);
+            sum += error;
+        }
+        assertTrue(Math.abs(sum / trials) < 0.006, "Mean error: " + sum / trials);
+    }
+
+    @Test
+    public void merge() throws IOException {
+        System.out.println("\nExecuting test case for merging and writing sketches");
+        DistinctCountSketch first = new DistinctCountSketch(12);
+        DistinctCountSketch second = new DistinctCountSketch(12);
+        for (int i = 0; i < 60000; i++) {
+            first.accept(i);
+            second.accept(i + 40000);
+        }
+        first.merge(second);
+        assertTrue(Math.abs(first.getEstimate() - 100000) < 100000 * 0.06);
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new DistinctCountSketch()));
+        assertThrows(IllegalArgumentException.class, () -> new DistinctCountSketch(3));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        first.writeTo(new DataOutputStream(bytes));
+        DistinctCountSketch copy = DistinctCountSketch.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(12, copy.getPrecision());
+        assertEquals(first.getEstimate(), copy.getEstimate());
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * <h1>Double Formatter Test</h1>
+ * This class provides test cases for the DoubleFormatter Class.
+ * Fixed-point output must round like String.format.
+ */
+
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DoubleFormatterTest {
+
+    @Test
+    public void fixedPoint() {
+        System.out.println("\nExecuting test case for fixed-point formatting");
+        assertEquals("123.46", format(123.456, 2));
+        assertEquals("123", format(123.456, 0));
+        assertEquals("-2.50", format(-2.5, 2));
+        assertEquals("-3", format(-2.5, 0));
+        assertEquals("0.05", format(0.05, 2));
+        assertEquals("1.000", format(0.99951, 3));
+        assertEquals("-10.00", format(-9.99999, 2));
+        assertEquals("0.00", format(-0.0001, 2));
+        assertEquals("0.000000000000001", format(1e-15, 15));
+        for (double value : new double[] {3.14159, -271.828, 0.5, 1e10}) {
+            for (int decimals = 0; decimals <= 6; decimals++) {
+                assertEquals(String.format("%." + decimals + "f", value), format(value, decimals));
+            }
+        }
+    }
+
+    @Test
+    public void fullPrecisionAndSpecialValues() {
+        System.out.println("\nExecuting test case for full precision formatting");
+        assertEquals("NaN", format(Double.NaN, 2));
+        assertEquals("Infinity", format(Double.POSITIVE_INFINITY, 2));
+        assertEquals("-Infinity", format(Double.NEGATIVE_INFINITY, DoubleFormatter.FULL_PRECISION));
+        assertEquals("1.0E20", format(1e20, 2));
+        for (double value : new double[] {0.1, -1.2345678901234567E-5, Double.MIN_VALUE, Double.MAX_VALUE}) {
+            String text = format(value, DoubleFormatter.FULL_PRECISION);
+            assertEquals(Double.toString(value), text);
+            assertEquals(value, Double.parseDouble(text));
+        }
+    }
+
+    private static String format(double value, int decimals) {
+        byte[] dest = new byte[DoubleFormatter.MAX_LENGTH + 8];
+        dest[0] = '#';
+        int end = DoubleFormatter.format(value, decimals, dest, 1);
+        assertEquals('#', dest[0]);
+        return new String(dest, 1, end - 1, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * <h1>Frequent Values Test</h1>
+ * This class provides test cases for the FrequentValues Class.
+ * Counts must be exact while every value fits and bounded otherwise.
+ */
+
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrequentValuesTest {
+
+    @Test
+    public void exactCounts() {
+        System.out.println("\nExecuting test case for frequent values within capacity");
+        FrequentValues frequent = new FrequentValues(8);
+        frequent.acceptAll(new double[] {3, 1, 2, 3, 2, 3, 5, 4});
+        assertEquals(8, frequent.getCount());
+        assertArrayEquals(new double[] {3, 2, 1}, frequent.getTopValues(3));
+        assertEquals(3, frequent.getEstimate(3));
+        assertEquals(3, frequent.getLowerBound(3));
+        assertEquals(0, frequent.getEstimate(9));
+        frequent.clear();
+        assertEquals(0, frequent.getTopValues(3).length);
+        assertThrows(IllegalArgumentException.class, () -> new FrequentValues(0));
+        assertThrows(IllegalArgumentException.class, () -> frequent.getTopValues(-1));
+    }
+
+    @Test
+    public void heavyHitters() {
+        System.out.println("\nExecuting test case for frequent values beyond capacity");
+        FrequentValues frequent = new FrequentValues(64);
+        Random random = new Random(42);
+        int heavy = 0;
+        for (int i = 0; i < 200000; i++) {
+            if (i % 10 == 0) {
+                frequent.accept(-1);
+                heavy++;
+            } else {
+                frequent.accept(random.nextInt(1000000));
+            }
+        }
+        assertEquals(-1, frequent.getTopValues(1)[0]);
+        assertTrue(frequent.getLowerBound(-1) <= heavy);
+        assertTrue(frequent.getEstimate(-1) >= heavy);
+        assertTrue(frequent.getEstimate(-1) - heavy <= 200000 / 64);
+    }
+}
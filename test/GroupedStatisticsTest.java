@@ -0,0 +1,66 @@
+/**
+ * <h1>Grouped Statistics Test</h1>
+ * This class provides test cases for the GroupedStatistics Class.
+ * Every group must give the same measures as loading it on its own.
+ */
+
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GroupedStatisticsTest {
+
+    @Test
+    public void groupsMatchStatistics() {
+        System.out.println("\nExecuting test case for grouped statistics");
+        GroupedStatistics groups = new GroupedStatistics(true);
+        Random random = new Random(7);
+        double[][] expected = new double[100][];
+        int[] sizes = new int[100];
+        for (int i = 0; i < 100; i++) {
+            expected[i] = new double[50];
+        }
+        for (int i = 0; i < 3000; i++) {
+            int group = random.nextInt(100);
+            double value = random.nextInt(1000) / 10.0;
+            if (sizes[group] < 50) {
+                expected[group][sizes[group]++] = value;
+                groups.add("host-" + group, value);
+            }
+        }
+
+        assertEquals(100, groups.getGroupCount());
+        for (int i = 0; i < 100; i++) {
+            String key = "host-" + i;
+            Statistics single = new Statistics();
+            single.readData(Arrays.copyOf(expected[i], sizes[i]));
+            assertEquals(single.getCount(), groups.getCount(key));
+            assertEquals(single.getMin(), groups.getMin(key));
+            assertEquals(single.getMax(), groups.getMax(key));
+            assertEquals(single.getMean(), groups.getMean(key), 1e-9);
+            assertEquals(single.getSD(), groups.getSD(key), 1e-9);
+            assertEquals(single.getMedian(), groups.getMedian(key));
+            assertEquals(single.getPercentile(90), groups.getPercentile(key, 90));
+        }
+    }
+
+    @Test
+    public void addAfterOrderStatistics() {
+        System.out.println("\nExecuting test case for grouped statistics with late values");
+        GroupedStatistics groups = new GroupedStatistics(true);
+        groups.addAll(new String[] { "a", "b", "a" }, new double[] { 3, 10, 1 });
+        assertEquals(2, groups.getMedian("a"));
+        groups.add("a", 8);
+        assertEquals(3, groups.getMedian("a"));
+        assertArrayEquals(new String[] { "a", "b" }, groups.getKeys());
+        assertEquals(0, groups.getCount("c"));
+        assertThrows(IllegalArgumentException.class, () -> groups.getMean("c"));
+        assertThrows(IllegalStateException.class, () -> new GroupedStatistics().getMedian("a"));
+    }
+}
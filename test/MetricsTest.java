@@ -0,0 +1,38 @@
+/**
+ * <h1>Metrics Test</h1>
+ * This class provides test cases for the Metrics Class.
+ * Instrumented operations must be counted only while metrics are enabled.
+ */
+
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MetricsTest {
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void recordsOnlyWhenEnabled() {
+        System.out.println("\nExecuting test case for metrics");
+        Metrics.reset();
+        Statistics statistics = new Statistics();
+        statistics.readData(new double[] { 3, 1, 2 });
+        statistics.getMedian();
+        assertEquals(0, Metrics.timer("measure.median").getCount());
+
+        Metrics.setEnabled(true);
+        statistics.getMedian();
+        statistics.getMedian();
+        statistics.readData(new double[] { 1, 2 });
+        assertEquals(2, Metrics.timer("measure.median").getCount());
+        assertEquals(2, Metrics.counter("values.loaded").getValue());
+        assertEquals(true, Metrics.toJson().contains("\"measure.median\":{\"count\":2,"));
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * <h1>Number File Reader Test</h1>
+ * This class provides test cases for the NumberFileReader Class.
+ * Every parsed value must be identical to Double.parseDouble.
+ */
+
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NumberFileReaderTest {
+    private static final String[] LINES = {
+            "10", "-2.5", "0.000175", "999.997246", "1.2345678901234567E-5",
+            " 3e10\r", "", "-0", "NaN", "123456789012345678901234567890" };
+
+    @Test
+    public void readMatchesParseDouble() throws IOException {
+        System.out.println("\nExecuting test case for NIO number reader");
+        File file = File.createTempFile("numbers", ".txt");
+        file.deleteOnExit();
+        FileWriter writer = new FileWriter(file);
+        for (String line : LINES) {
+            writer.write(line + "\n");
+        }
+        writer.close();
+
+        double[] values = NumberFileReader.read(file.getPath());
+        assertEquals(LINES.length - 1, values.length);
+        int i = 0;
+        for (String line : LINES) {
+            if (!line.trim().isEmpty()) {
+                assertEquals(Double.doubleToLongBits(Double.parseDouble(line.trim())),
+                        Double.doubleToLongBits(values[i++]));
+            }
+        }
+    }
+
+    @Test
+    public void parallelReadMatchesSingleThread() throws IOException {
+        System.out.println("\nExecuting test case for parallel NIO number reader");
+        File file = File.createTempFile("numbers", ".txt");
+        file.deleteOnExit();
+        String text = "12345.678\r\n-0.5\r\n\r\n987654321\n3e-7\r\n42\n  7.25 \r\n1e300\n-17";
+        FileWriter writer = new FileWriter(file);
+        writer.write(text);
+        writer.close();
+
+        double[] expected = NumberFileReader.read(file.getPath());
+        assertEquals(8, expected.length);
+        // With one byte per thread at most, the ranges start at every byte:
+        // inside numbers, between \r and \n, and right after a newline.
+        for (int threads = 2; threads <= text.length(); threads++) {
+            double[] values = NumberFileReader.read(file.getPath(), threads, 1);
+            assertArrayEquals(expected, values, "threads: " + threads);
+        }
+    }
+}
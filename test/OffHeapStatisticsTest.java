@@ -0,0 +1,109 @@
+/**
+ * <h1>Off-Heap Statistics Test</h1>
+ * This class provides test cases for the OffHeapStatistics Class.
+ * Measures are compared against the Statistics Class loaded with the
+ * same values.
+ */
+
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OffHeapStatisticsTest {
+
+    @Test
+    public void matchesStatistics() {
+        System.out.println("\nExecuting test case for off-heap measures");
+        double[] values = new double[10001];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (i * 7919) % 1000 - 500;
+        }
+        OffHeapDoubleArray array = new OffHeapDoubleArray();
+        array.addAll(values, 0, values.length);
+        OffHeapStatistics offHeap = new OffHeapStatistics();
+        offHeap.readData(array);
+        Statistics statistics = new Statistics();
+        statistics.readData(values);
+
+        assertEquals(statistics.getCount(), offHeap.getCount());
+        assertEquals(statistics.getMin(), offHeap.getMin());
+        assertEquals(statistics.getMax(), offHeap.getMax());
+        assertEquals(statistics.getMean(), offHeap.getMean(), 1e-12);
+        assertEquals(statistics.getVariance(), offHeap.getVariance(), 1e-9);
+        assertEquals(statistics.getMAD(), offHeap.getMAD(), 1e-12);
+        assertEquals(statistics.getMedian(), offHeap.getMedian());
+        assertEquals(statistics.getPercentile(12.5), offHeap.getPercentile(12.5));
+        assertEquals(Arrays.toString(statistics.getMode(3)), Arrays.toString(offHeap.getMode(3)));
+        assertEquals(statistics.getModeCount(), offHeap.getModeCount());
+        assertEquals(Arrays.toString(statistics.getMode(1)), Arrays.toString(offHeap.getMode(1)));
+        assertEquals(Arrays.toString(statistics.getMode(1000)), Arrays.toString(offHeap.getMode(1000)));
+        assertEquals(Arrays.toString(statistics.getMode(2)), Arrays.toString(offHeap.getMode(2)));
+        assertEquals(0, offHeap.getMode(0).length);
+        assertThrows(IllegalArgumentException.class, () -> offHeap.getMode(-1));
+
+        array = new OffHeapDoubleArray();
+        array.addAll(new double[] { 4, 4, 1 }, 0, 3);
+        offHeap.readData(array);
+        assertEquals("[4.0]", Arrays.toString(offHeap.getMode(3)));
+    }
+
+    @Test
+    public void spansSeveralChunks() throws IOException {
+        System.out.println("\nExecuting test case for off-heap measures across chunks");
+        double[] values = new double[3500];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (i * 7919) % 701 - 350 + (i % 5 == 0 ? 0.5 : 0);
+        }
+        File file = File.createTempFile("offheap", ".sds");
+        file.deleteOnExit();
+        BinaryDataset.write(file.getPath(), values);
+        // Chunks of 1024 values; the file starts part way into the first one.
+        OffHeapDoubleArray array = new OffHeapDoubleArray(10);
+        array.addAll(values, 0, 100);
+        assertEquals(false, BinaryDataset.readInto(file.getPath(), array));
+        assertEquals(4, array.chunkCount());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], array.get(100 + i));
+        }
+
+        double[] all = new double[100 + values.length];
+        System.arraycopy(values, 0, all, 0, 100);
+        System.arraycopy(values, 0, all, 100, values.length);
+        OffHeapStatistics offHeap = new OffHeapStatistics();
+        offHeap.readData(array);
+        Statistics statistics = new Statistics();
+        statistics.readData(all);
+
+        assertEquals(statistics.getCount(), offHeap.getCount());
+        assertEquals(statistics.getMin(), offHeap.getMin());
+        assertEquals(statistics.getMax(), offHeap.getMax());
+        assertEquals(statistics.getMean(), offHeap.getMean(), 1e-12);
+        assertEquals(statistics.getVariance(), offHeap.getVariance(), 1e-9);
+        assertEquals(statistics.getMAD(), offHeap.getMAD(), 1e-12);
+        assertEquals(statistics.getMedian(), offHeap.getMedian());
+        for (double percentile = 0; percentile <= 100; percentile += 2.5) {
+            assertEquals(statistics.getPercentile(percentile), offHeap.getPercentile(percentile));
+        }
+        assertEquals(statistics.getModeCount(), offHeap.getModeCount());
+        assertEquals(Arrays.toString(statistics.getMode(10)), Arrays.toString(offHeap.getMode(10)));
+    }
+
+    @Test
+    public void longIndexing() {
+        System.out.println("\nExecuting test case for off-heap chunks");
+        OffHeapDoubleArray array = new OffHeapDoubleArray();
+        long count = OffHeapDoubleArray.CHUNK_SIZE + 10L;
+        for (long i = 0; i < count; i++) {
+            array.accept(i);
+        }
+        assertEquals(count, array.size());
+        assertEquals(2, array.chunkCount());
+        assertEquals(OffHeapDoubleArray.CHUNK_SIZE + 5.0, array.get(OffHeapDoubleArray.CHUNK_SIZE + 5L));
+    }
+}
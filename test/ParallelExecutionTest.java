@@ -0,0 +1,77 @@
+/**
+ * <h1>Parallel Execution Test</h1>
+ * This class provides test cases for the ParallelExecution Class.
+ * Results must not depend on the number of threads of the pool.
+ */
+
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class ParallelExecutionTest {
+    private static final int[] POOL_SIZES = {1, 2, 7};
+
+    @Test
+    public void summaryIsIdenticalForEveryPoolSize() throws IOException {
+        System.out.println("\nExecuting test case for summaries on pools of different sizes");
+        double[] values = randomValues(7 * ParallelExecution.BLOCK_SIZE + 123);
+        byte[] sequential = serialize(new Summary(values));
+        for (int threads : POOL_SIZES) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Summary summary = new Summary(values, new ParallelExecution(pool, 0));
+                assertArrayEquals(sequential, serialize(summary), "threads: " + threads);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void sortMatchesArraysSort() {
+        System.out.println("\nExecuting test case for sorting on pools of different sizes");
+        double[] values = randomValues(5 * ParallelExecution.BLOCK_SIZE + 7);
+        for (int i = 0; i < values.length; i += 997) {
+            values[i] = i % 3 == 0 ? Double.NaN : i % 3 == 1 ? -0.0 : 0.0;
+        }
+        double[] expected = values.clone();
+        Arrays.sort(expected);
+        for (int threads : POOL_SIZES) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                double[] sorted = values.clone();
+                new ParallelExecution(pool, 0).sort(sorted);
+                assertArrayEquals(expected, sorted, "threads: " + threads);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Return values spread over many orders of magnitude, so the result of
+     * every sum depends on the order of the additions.
+     */
+    private static double[] randomValues(int length) {
+        Random random = new Random(10);
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (random.nextDouble() + 0.5) * Math.pow(10, random.nextInt(16) - 4);
+        }
+        return values;
+    }
+
+    private static byte[] serialize(Summary summary) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        summary.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+}
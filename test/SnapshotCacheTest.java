@@ -0,0 +1,154 @@
+/**
+ * <h1>Snapshot Cache Test</h1>
+ * This class provides test cases for the SnapshotCache Class.
+ * A snapshot must only be used while the source file is unchanged.
+ */
+
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SnapshotCacheTest {
+    private final List<File> directories = new ArrayList<File>();
+
+    @After
+    public void tearDown() {
+        for (File directory : directories) {
+            File[] files = directory.listFiles();
+            for (File file : files == null ? new File[0] : files) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void reloadFromSnapshot() throws IOException {
+        System.out.println("\nExecuting test case for the snapshot cache");
+        File directory = Files.createTempDirectory("snapshots").toFile();
+        directory.deleteOnExit();
+        File source = File.createTempFile("snapshot", ".txt");
+        source.deleteOnExit();
+        write(source, "5\n1\n4\n4\n2\n");
+        SnapshotCache cache = new SnapshotCache(directory.getPath());
+
+        Statistics first = new Statistics();
+        assertEquals(false, cache.load(source.getPath(), first, 1));
+        Statistics second = new Statistics();
+        assertEquals(true, cache.load(source.getPath(), second, 1));
+        assertEquals(first.getCount(), second.getCount());
+        assertEquals(first.getMean(), second.getMean());
+        assertEquals(first.getMAD(), second.getMAD());
+        assertEquals(first.getSD(), second.getSD());
+        assertEquals(4, second.getMedian());
+        assertEquals(1, second.getModeCount());
+        assertEquals(4, second.getMode(1)[0]);
+
+        write(source, "5\n1\n4\n3\n2\n");
+        Statistics changed = new Statistics();
+        assertEquals(false, cache.load(source.getPath(), changed, 1));
+        assertEquals(3, changed.getMedian());
+        assertEquals(5, changed.getModeCount());
+        for (File file : directory.listFiles()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void offByDefault() throws IOException {
+        System.out.println("\nExecuting test case for the snapshot cache being off");
+        String directory = System.clearProperty("statistics.snapshot.dir");
+        try {
+            SnapshotCache cache = SnapshotCache.fromSystemProperties();
+            assertEquals(false, cache.isEnabled());
+            File source = temporarySource("3\n1\n2\n");
+            Statistics model = new Statistics();
+            assertEquals(false, cache.load(source.getPath(), model, 1));
+            assertEquals(false, cache.load(source.getPath(), model, 1));
+            assertEquals(2, model.getMedian());
+        } finally {
+            if (directory != null) {
+                System.setProperty("statistics.snapshot.dir", directory);
+            }
+        }
+    }
+
+    @Test
+    public void ignoresOtherVersions() throws IOException {
+        System.out.println("\nExecuting test case for snapshot versions");
+        File directory = temporaryDirectory();
+        File source = temporarySource("5\n1\n4\n");
+        SnapshotCache cache = new SnapshotCache(directory.getPath());
+        assertEquals(false, cache.load(source.getPath(), new Statistics(), 1));
+        File key = directory.listFiles((dir, name) -> name.endsWith(".key"))[0];
+        // The Summary version follows the magic number and the format version.
+        try (RandomAccessFile raw = new RandomAccessFile(key, "rw")) {
+            raw.seek(8);
+            raw.writeInt(Summary.VERSION - 1);
+        }
+        Statistics model = new Statistics();
+        assertEquals(false, cache.load(source.getPath(), model, 1));
+        assertEquals(4, model.getMedian());
+        assertEquals(true, cache.load(source.getPath(), new Statistics(), 1));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        System.out.println("\nExecuting test case for snapshot eviction");
+        File directory = temporaryDirectory();
+        File first = temporarySource("1\n2\n3\n");
+        File second = temporarySource("4\n5\n6\n");
+        assertEquals(false, new SnapshotCache(directory.getPath()).load(first.getPath(), new Statistics(), 1));
+        long size = 0;
+        for (File file : directory.listFiles()) {
+            size += file.length();
+            file.setLastModified(file.lastModified() - 60000);
+        }
+
+        // Room for one snapshot and a half.
+        SnapshotCache cache = new SnapshotCache(directory.getPath(), size + size / 2);
+        assertEquals(false, cache.load(second.getPath(), new Statistics(), 1));
+        assertEquals(2, directory.listFiles().length);
+        assertEquals(true, cache.load(second.getPath(), new Statistics(), 1));
+        assertEquals(false, cache.load(first.getPath(), new Statistics(), 1));
+        assertEquals(2, directory.listFiles().length);
+
+        // A snapshot larger than the limit is not stored.
+        File small = temporaryDirectory();
+        SnapshotCache tiny = new SnapshotCache(small.getPath(), 16);
+        assertEquals(false, tiny.load(first.getPath(), new Statistics(), 1));
+        assertEquals(false, tiny.load(first.getPath(), new Statistics(), 1));
+        assertEquals(0, small.listFiles() == null ? 0 : small.listFiles().length);
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotCache(small.getPath(), -1));
+    }
+
+    private File temporaryDirectory() throws IOException {
+        File directory = Files.createTempDirectory("snapshots").toFile();
+        directories.add(directory);
+        return directory;
+    }
+
+    private static File temporarySource(String text) throws IOException {
+        File source = File.createTempFile("snapshot", ".txt");
+        source.deleteOnExit();
+        write(source, text);
+        return source;
+    }
+
+    private static void write(File file, String text) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        writer.write(text);
+        writer.close();
+    }
+}
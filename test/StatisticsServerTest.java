@@ -0,0 +1,139 @@
+/**
+ * <h1>Statistics Server Test</h1>
+ * This class provides test cases for the StatisticsServer Class.
+ * Concurrent queries must all see the same shared data set.
+ */
+
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StatisticsServerTest {
+
+    @Test
+    public void loadAndQuery() throws Exception {
+        System.out.println("\nExecuting test case for the statistics server");
+        StatisticsServer server = new StatisticsServer(0);
+        server.start();
+        try {
+            String base = "http://localhost:" + server.getPort() + "/datasets/";
+            assertEquals("{\"name\":\"a\",\"count\":4}", request("PUT", base + "a", "1\n2\n2\n9\n"));
+            assertEquals("{\"name\":\"a\",\"count\":4,\"median\":2.0,\"p50\":2.0,\"mode\":[2.0],\"mode_count\":1}",
+                    request("GET", base + "a?measures=count,median,p50,mode", null));
+            assertEquals("{\"datasets\":{\"a\":4}}", request("GET", base.substring(0, base.length() - 1), null));
+
+            ExecutorService clients = Executors.newFixedThreadPool(4);
+            List<Future<String>> answers = new ArrayList<Future<String>>();
+            for (int i = 0; i < 40; i++) {
+                answers.add(clients.submit(() -> request("GET", base + "a?measures=mean,max", null)));
+            }
+            for (Future<String> answer : answers) {
+                assertEquals("{\"name\":\"a\",\"mean\":3.5,\"max\":9.0}", answer.get());
+            }
+            clients.shutdown();
+
+            assertEquals("", request("DELETE", base + "a", null));
+            assertEquals("{\"error\":\"Unknown data set: a\"}", request("GET", base + "a", null));
+
+            String prefix = "http://localhost:" + server.getPort() + "/datasetsfoo";
+            assertEquals(404, status("PUT", prefix, "1\n"));
+            assertEquals("{\"datasets\":{}}", request("GET", base.substring(0, base.length() - 1), null));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void requestSizeLimit() throws Exception {
+        System.out.println("\nExecuting test case for the request size limit of the server");
+        StatisticsServer server = new StatisticsServer(0, 16);
+        server.start();
+        try {
+            String base = "http://localhost:" + server.getPort() + "/datasets/";
+            assertEquals(200, status("PUT", base + "small", "1\n2\n3\n", false));
+            String large = "1000\n2000\n3000\n4000\n";
+            assertEquals(413, status("PUT", base + "large", large, false));
+            // Without a declared length the body is cut off while it is read.
+            assertEquals(413, status("PUT", base + "large", large, true));
+            assertEquals("{\"datasets\":{\"small\":3}}", request("GET", base.substring(0, base.length() - 1), null));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void errorsDoNotQuoteData() throws Exception {
+        System.out.println("\nExecuting test case for the error messages of the server");
+        File file = File.createTempFile("server", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("1\nsecret\n");
+        }
+        StatisticsServer server = new StatisticsServer(0);
+        server.start();
+        try {
+            String base = "http://localhost:" + server.getPort() + "/datasets/";
+            assertEquals("{\"error\":\"Line 2 is not a number.\"}", request("PUT", base + "a", "1\nsecret\n"));
+            assertEquals("{\"error\":\"Line at byte 2 is not a number.\"}",
+                    request("PUT", base + "a?file=" + URLEncoder.encode(file.getPath(), "UTF-8"), null));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static int status(String method, String address, String body) throws IOException {
+        return status(method, address, body, false);
+    }
+
+    private static int status(String method, String address, String body, boolean chunked) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(address).openConnection();
+        connection.setRequestMethod(method);
+        if (chunked) {
+            connection.setChunkedStreamingMode(4);
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes("UTF-8"));
+            }
+        }
+        int code = connection.getResponseCode();
+        connection.disconnect();
+        return code;
+    }
+
+    private static String request(String method, String address, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(address).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes("UTF-8"));
+            }
+        }
+        InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream()
+                : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (in != null) {
+            in.transferTo(bytes);
+            in.close();
+        }
+        return bytes.toString("UTF-8");
+    }
+}
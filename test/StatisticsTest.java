@@ -23,9 +23,12 @@ import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Random;
 import java.util.Scanner;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class   StatisticsTest {
     private static Statistics statistics = new Statistics();
@@ -85,12 +88,140 @@ public class   StatisticsTest {
         assertEquals(10.0, tempVar.getMode().get(0));
     }
 
+    @Test
+    public void getModeWithLimit() {
+        System.out.println("\nExecuting test case for bounded Mode");
+        Statistics tempVar = new Statistics();
+        tempVar.readData(new double[] {4, 1, 3, 2, 3, 1, 4, 2});
+        assertEquals(4, tempVar.getModeCount());
+        double[] mode = tempVar.getMode(2);
+        assertEquals(2, mode.length);
+        assertEquals(1.0, mode[0]);
+        assertEquals(2.0, mode[1]);
+    }
+
     @Test
     public void getMedian() {
         System.out.println("\nExecuting test case for Median");
         assertEquals(499.474147, round(statistics.getMedian(), 6));
     }
 
+    @Test
+    public void getPercentile() {
+        System.out.println("\nExecuting test case for Percentile");
+        Statistics tempVar = new Statistics();
+        tempVar.readData(new double[] {7, 1, 5, 3, 9});
+        assertEquals(1.0, tempVar.getPercentile(0));
+        assertEquals(4.0, tempVar.getPercentile(37.5));
+        assertEquals(9.0, tempVar.getPercentile(100));
+        double[] quantiles = tempVar.getQuantiles(0.25, 0.5, 0.75);
+        assertEquals(3.0, quantiles[0]);
+        assertEquals(5.0, quantiles[1]);
+        assertEquals(7.0, quantiles[2]);
+    }
+
+    @Test
+    public void getApproximateMedian() {
+        System.out.println("\nExecuting test case for approximate Median");
+        double[] values = new double[1000000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        Random random = new Random(12);
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        Statistics tempVar = new Statistics();
+        tempVar.readData(values);
+        tempVar.setApproximateQuantiles(QuantileSketch.DEFAULT_K);
+        // Rank error of at most about 4/k of the count.
+        double tolerance = 4.0 / QuantileSketch.DEFAULT_K * values.length;
+        assertEquals(500000, tempVar.getMedian(), tolerance);
+        for (int percent = 1; percent < 100; percent++) {
+            assertEquals(percent * 10000, tempVar.getPercentile(percent), tolerance);
+        }
+    }
+
+    @Test
+    public void addAndRemove() {
+        System.out.println("\nExecuting test case for add and remove");
+        Statistics tempVar = new Statistics();
+        tempVar.readData(new double[] { 4, 1, 3 });
+        tempVar.add(2);
+        tempVar.addAll(new double[] { 6, 5 });
+        assertEquals(true, tempVar.remove(6));
+        assertEquals(false, tempVar.remove(7));
+        assertEquals(5, tempVar.getCount());
+        assertEquals(1, tempVar.getMin());
+        assertEquals(5, tempVar.getMax());
+        assertEquals(3, tempVar.getMedian());
+        assertEquals(3, tempVar.getMean(), 1e-12);
+        assertEquals(2.5, tempVar.getVariance(), 1e-12);
+        assertEquals(1.2, tempVar.getMAD(), 1e-12);
+    }
+
+    @Test
+    public void compensatedMoments() {
+        System.out.println("\nExecuting test case for compensated sums");
+        Statistics tempVar = new Statistics();
+        tempVar.readData(new double[] { 1e100, 1, -1e100 });
+        assertEquals(1 / 3.0, tempVar.getMean());
+        tempVar.readData(new double[] { 1e9 + 1, 1e9 + 2, 1e9 + 3, 1e9 + 4 });
+        assertEquals(1e9 + 2.5, tempVar.getMean());
+        assertEquals(5 / 3.0, tempVar.getVariance());
+        assertEquals(1, tempVar.getMAD());
+    }
+
+    @Test
+    public void editedMoments() {
+        System.out.println("\nExecuting test case for compensated sums after edits");
+        double[][] cases = { { 1e100, 1, -1e100, 0 }, { 1e9 + 1, 1e9 + 2, 1e9 + 3, 1e9 + 4 },
+                { 0.1, 0.2, 0.3, 1e-3, 7.5 } };
+        for (double[] values : cases) {
+            Statistics loaded = new Statistics();
+            loaded.readData(values);
+            Statistics edited = new Statistics();
+            edited.readData(Arrays.copyOf(values, values.length - 1));
+            edited.add(values[values.length - 1]);
+            edited.add(42);
+            assertTrue(edited.remove(42));
+            assertEquals(loaded.getMean(), edited.getMean(), 4 * Math.ulp(loaded.getMean()));
+            assertEquals(loaded.getHarmonicMean(), edited.getHarmonicMean(), 4 * Math.ulp(loaded.getHarmonicMean()));
+            assertEquals(loaded.getVariance(), edited.getVariance(), 4 * Math.ulp(loaded.getVariance()));
+            assertEquals(loaded.getPSD(), edited.getPSD(), 4 * Math.ulp(loaded.getPSD()));
+        }
+        Statistics edited = new Statistics();
+        edited.readData(new double[] { 1e100, 1, -1e100 });
+        edited.add(0);
+        assertEquals(0.25, edited.getMean());
+    }
+
+    @Test
+    public void cachedMeasures() {
+        System.out.println("\nExecuting test case for cached measures");
+        Statistics tempVar = new Statistics();
+        tempVar.readData(new double[] { 1, 2, 2, 3, 9 });
+        assertEquals(2, tempVar.getMedian());
+        assertEquals(2, tempVar.getMedian());
+        assertEquals(2, tempVar.getPercentile(50));
+        assertEquals(1, tempVar.getModeCount());
+        assertEquals(2, tempVar.getMode(1)[0]);
+        tempVar.add(9);
+        assertEquals(2.5, tempVar.getMedian());
+        assertEquals(2, tempVar.getModeCount());
+        assertEquals(2, tempVar.getMode(2).length);
+        // The limit is checked whether or not the modes are cached.
+        assertThrows(IllegalArgumentException.class, () -> tempVar.getMode(-1));
+        tempVar.readData(new double[] { 7 });
+        assertThrows(IllegalArgumentException.class, () -> tempVar.getMode(-1));
+        assertEquals(7, tempVar.getMedian());
+        assertEquals(7, tempVar.getPercentile(50));
+        assertEquals(1, tempVar.getModeCount());
+    }
+
     @Test
     public void getMean() {
         System.out.println("\nExecuting test case for Meam");
@@ -147,6 +278,18 @@ public class   StatisticsTest {
         assertEquals(5, round(Statistics.sqrt(25),0));
     }
 
+    @Test
+    public void getSqrtWideRange(){
+        System.out.println("\nExecuting test case for Square Root over a wide range");
+        assertEquals(1e8, Statistics.sqrt(1e16), 1e-7);
+        assertEquals(1e-8, Statistics.sqrt(1e-16), 1e-23);
+        assertEquals(1.4142135623730951, Statistics.sqrt(2), 1e-15);
+        assertEquals(Double.NaN, Statistics.sqrt(-1));
+        assertEquals(Double.NaN, Statistics.sqrt(Double.NaN));
+        assertEquals(Double.POSITIVE_INFINITY, Statistics.sqrt(Double.POSITIVE_INFINITY));
+        assertEquals(0.0, Statistics.sqrt(0));
+    }
+
     public double round(double value, int places) {
         if (places < 0) throw new IllegalArgumentException();
 
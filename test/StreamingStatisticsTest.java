@@ -0,0 +1,101 @@
+/**
+ * <h1>Streaming Statistics Test</h1>
+ * This class provides test cases for the StreamingStatistics Class.
+ * The streaming measures are compared against the Statistics Class
+ * on the same data set.
+ */
+
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingStatisticsTest {
+    private static final double[] DATA = {10, 2, 3, 4, 10, 10, 5, 3};
+
+    @Test
+    public void matchesStatistics() {
+        System.out.println("\nExecuting test case for streaming measures");
+        Statistics statistics = new Statistics();
+        statistics.readData(DATA);
+        StreamingStatistics streaming = new StreamingStatistics();
+        streaming.acceptAll(DATA);
+
+        assertEquals(DATA.length, streaming.getCount());
+        assertEquals(statistics.getMin(), streaming.getMin());
+        assertEquals(statistics.getMax(), streaming.getMax());
+        assertEquals(statistics.getMean(), streaming.getMean(), 1e-12);
+        assertEquals(statistics.getVariance(), streaming.getVariance(), 1e-12);
+        assertEquals(statistics.getPVariance(), streaming.getPVariance(), 1e-12);
+        assertEquals(statistics.getHarmonicMean(), streaming.getHarmonicMean(), 1e-12);
+    }
+
+    @Test
+    public void mergeShards() throws IOException {
+        System.out.println("\nExecuting test case for merging serialized shards");
+        StreamingStatistics whole = new StreamingStatistics(QuantileSketch.DEFAULT_K);
+        whole.acceptAll(DATA);
+        StreamingStatistics first = new StreamingStatistics(QuantileSketch.DEFAULT_K);
+        first.acceptAll(Arrays.copyOfRange(DATA, 0, 3));
+        StreamingStatistics second = new StreamingStatistics(QuantileSketch.DEFAULT_K);
+        second.acceptAll(Arrays.copyOfRange(DATA, 3, DATA.length));
+
+        StreamingStatistics merged = StreamingStatistics.fromByteArray(first.toByteArray());
+        merged.merge(StreamingStatistics.fromByteArray(second.toByteArray()));
+
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getMin(), merged.getMin());
+        assertEquals(whole.getMax(), merged.getMax());
+        assertEquals(whole.getMean(), merged.getMean(), 1e-12);
+        assertEquals(whole.getVariance(), merged.getVariance(), 1e-12);
+        assertEquals(whole.getHarmonicMean(), merged.getHarmonicMean(), 1e-12);
+        assertEquals(whole.getMedian(), merged.getMedian());
+    }
+
+    @Test
+    public void mergeCompactedShards() {
+        System.out.println("\nExecuting test case for merging compacted sketches");
+        int length = 200000;
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i;
+        }
+        Random random = new Random(7);
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        QuantileSketch merged = new QuantileSketch();
+        for (int shard = 0; shard < 4; shard++) {
+            QuantileSketch part = new QuantileSketch();
+            part.acceptAll(Arrays.copyOfRange(values, shard * length / 4, (shard + 1) * length / 4));
+            merged.merge(part);
+        }
+        assertEquals(length, merged.getCount());
+        assertTrue(merged.retained() < length / 100);
+        // Rank error of at most about 4/k of the count.
+        double tolerance = 4.0 / QuantileSketch.DEFAULT_K * length;
+        for (int percent = 1; percent < 100; percent++) {
+            assertEquals(percent * length / 100 - 1, merged.getQuantile(percent / 100.0), tolerance);
+        }
+
+        merged.merge(merged);
+        assertEquals(2 * length, merged.getCount());
+        assertEquals(length / 2, merged.getQuantile(0.5), tolerance);
+    }
+
+    @Test
+    public void emptyAccumulator() {
+        System.out.println("\nExecuting test case for empty streaming accumulator");
+        StreamingStatistics streaming = new StreamingStatistics();
+        assertEquals(0, streaming.getCount());
+        assertEquals(Double.NaN, streaming.getMean());
+    }
+}
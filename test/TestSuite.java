@@ -13,7 +13,13 @@ import org.junit.runners.Suite;
 import org.junit.runner.RunWith;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({StatisticsTest.class})
+@Suite.SuiteClasses({StatisticsTest.class, StreamingStatisticsTest.class, NumberFileReaderTest.class,
+        WindowedStatisticsTest.class, OffHeapStatisticsTest.class, BatchModeTest.class,
+        MetricsTest.class, ColumnarDatasetTest.class,
+        GroupedStatisticsTest.class, SnapshotCacheTest.class,
+        StatisticsServerTest.class, DistinctCountSketchTest.class, FrequentValuesTest.class,
+        DoubleFormatterTest.class, DataGeneratorTest.class, BinaryDatasetTest.class,
+        ParallelExecutionTest.class})
 public class TestSuite {
     // Test suite for Project
 }
\ No newline at end of file
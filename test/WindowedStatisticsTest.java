@@ -0,0 +1,54 @@
+/**
+ * <h1>Windowed Statistics Test</h1>
+ * This class provides test cases for the WindowedStatistics Class.
+ * Measures of the window are compared against the Statistics Class
+ * loaded with the same values.
+ */
+
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WindowedStatisticsTest {
+    private static final double[] FEED = {10, 2, 3, 4, 10, 10, 5, 3, 7, 1, 8, 8};
+
+    @Test
+    public void countWindow() {
+        System.out.println("\nExecuting test case for count based window");
+        WindowedStatistics window = new WindowedStatistics(5);
+        for (int i = 0; i < FEED.length; i++) {
+            window.accept(FEED[i], i);
+            Statistics statistics = new Statistics();
+            statistics.readData(Arrays.copyOfRange(FEED, Math.max(0, i - 4), i + 1));
+
+            assertEquals(statistics.getCount(), window.getCount());
+            assertEquals(statistics.getMin(), window.getMin());
+            assertEquals(statistics.getMax(), window.getMax());
+            assertEquals(statistics.getMedian(), window.getMedian());
+            assertEquals(statistics.getMean(), window.getMean(), 1e-12);
+            assertEquals(statistics.getPVariance(), window.getPVariance(), 1e-12);
+        }
+    }
+
+    @Test
+    public void timeWindow() {
+        System.out.println("\nExecuting test case for time based window");
+        WindowedStatistics window = new WindowedStatistics(Duration.ofSeconds(3));
+        long second = Duration.ofSeconds(1).toNanos();
+        for (int i = 0; i < FEED.length; i++) {
+            window.accept(FEED[i], i * second);
+        }
+        // Values that arrived at seconds 9, 10 and 11.
+        assertEquals(3, window.getCount());
+        assertEquals(1.0, window.getMin());
+        assertEquals(8.0, window.getMax());
+        assertEquals(8.0, window.getMedian());
+
+        window.expire(20 * second);
+        assertEquals(0, window.getCount());
+    }
+}